@@ -0,0 +1,39 @@
+package com.notification.config;
+
+import com.notification.service.execution.ChannelBulkhead;
+import com.notification.service.execution.ExecutionMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notification.bulkhead")
+@Getter
+@Setter
+public class BulkheadConfig {
+
+    private ExecutionMode mode = ExecutionMode.PLATFORM;
+    private Channel email = new Channel();
+    private Channel whatsapp = new Channel();
+
+    @Getter
+    @Setter
+    public static class Channel {
+        private int threadCap = 10 * Runtime.getRuntime().availableProcessors();
+        private int maxConcurrency = 1000;
+        private int queueCapacity = 1000;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ChannelBulkhead emailBulkhead(MeterRegistry meterRegistry) {
+        return new ChannelBulkhead("email", mode, email, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ChannelBulkhead whatsAppBulkhead(MeterRegistry meterRegistry) {
+        return new ChannelBulkhead("whatsapp", mode, whatsapp, meterRegistry);
+    }
+}
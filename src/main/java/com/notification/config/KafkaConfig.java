@@ -1,9 +1,12 @@
 package com.notification.config;
 
+import com.notification.service.kafka.EventCodec;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -14,9 +17,11 @@ import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderOptions;
 
-import java.util.Collections;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 @Configuration
 @ConfigurationProperties(prefix = "kafka")
@@ -36,6 +41,19 @@ public class KafkaConfig {
         private String deadLetterTopic;
         private String autoOffsetReset;
         private int maxPollRecords;
+        private ProcessingMode processingMode = ProcessingMode.UNORDERED;
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors() * 4;
+        private int perPartitionConcurrency = 1;
+        private int commitBatchSize = 0;
+        private long commitInterval = 5000;
+        private int maxDeferredCommits = 1000;
+    }
+
+    public enum ProcessingMode {
+        /** Every record is processed as soon as it arrives, with no ordering or concurrency limit. */
+        UNORDERED,
+        /** Records are hashed into bounded lanes by partition and key; each lane is processed in order. */
+        PARTITIONED
     }
 
     @Getter
@@ -43,42 +61,88 @@ public class KafkaConfig {
     public static class Producer {
         private int retries;
         private String acks;
+        private EventCodec.ContentType contentType = EventCodec.ContentType.JSON;
+        /** Milliseconds a partition's batch waits for more records before it is sent. */
+        private long linger = 5;
+        /** Upper bound in bytes of one partition's batch. */
+        private int batchSize = 64 * 1024;
+        /** none, gzip, snappy, lz4 or zstd. */
+        private String compressionType = "lz4";
+        private boolean idempotence = true;
+        /** Unacknowledged requests per broker connection; at most 5 with idempotence. */
+        private int maxInFlightPerConnection = 5;
+        /** Records the pipeline keeps in flight inside the sender before it stops pulling from its buffer. */
+        private int maxInFlight = 1024;
+        /** Records waiting in the pipeline buffer before sends are rejected. */
+        private int bufferCapacity = 10000;
+        /** Milliseconds a caller waits for its record's acknowledgement; above the producer's delivery.timeout.ms. */
+        private long sendTimeout = 150000;
+        private long shutdownTimeout = 10000;
     }
 
     @Bean
-    public ReceiverOptions<String, String> receiverOptions() {
+    public ReceiverOptions<String, byte[]> receiverOptions(PriorityConfig priorityConfig) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, consumer.getGroupId());
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, consumer.getAutoOffsetReset());
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, consumer.getMaxPollRecords());
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
-        return ReceiverOptions.<String, String>create(props)
-                .subscription(Collections.singleton(consumer.getTopic()));
+        Set<String> topics = new LinkedHashSet<>();
+        topics.add(consumer.getTopic());
+        if (priorityConfig.isEnabled()) {
+            priorityConfig.getLanes().values().stream()
+                    .map(PriorityConfig.Lane::getTopic)
+                    .filter(topic -> topic != null && !topic.isBlank())
+                    .forEach(topics::add);
+        }
+
+        ReceiverOptions<String, byte[]> options = ReceiverOptions.<String, byte[]>create(props)
+                .commitBatchSize(consumer.getCommitBatchSize())
+                .commitInterval(Duration.ofMillis(consumer.getCommitInterval()))
+                .subscription(topics);
+
+        if (priorityConfig.isEnabled()) {
+            // Higher lanes overtake records read before them; defer commits past every record still queued
+            options = options.maxDeferredCommits(Math.max(consumer.getMaxDeferredCommits(), priorityConfig.getMaxPending()));
+        } else if (consumer.getProcessingMode() == ProcessingMode.PARTITIONED) {
+            // Lanes acknowledge out of order; defer commits until each partition's offsets are contiguous
+            options = options.maxDeferredCommits(consumer.getMaxDeferredCommits());
+        }
+
+        return options;
     }
 
     @Bean
-    public KafkaReceiver<String, String> kafkaReceiver(ReceiverOptions<String, String> receiverOptions) {
+    public KafkaReceiver<String, byte[]> kafkaReceiver(ReceiverOptions<String, byte[]> receiverOptions) {
         return KafkaReceiver.create(receiverOptions);
     }
 
     @Bean
-    public SenderOptions<String, String> senderOptions() {
+    public SenderOptions<String, byte[]> senderOptions() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         props.put(ProducerConfig.ACKS_CONFIG, producer.getAcks());
         props.put(ProducerConfig.RETRIES_CONFIG, producer.getRetries());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, producer.getLinger());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompressionType());
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producer.isIdempotence());
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, producer.getMaxInFlightPerConnection());
 
-        return SenderOptions.create(props);
+        // One failed record must not end the long-lived pipeline stream; each caller gets its own error instead
+        return SenderOptions.<String, byte[]>create(props)
+                .maxInFlight(producer.getMaxInFlight())
+                .stopOnError(false);
     }
 
     @Bean
-    public KafkaSender<String, String> kafkaSender(SenderOptions<String, String> senderOptions) {
+    public KafkaSender<String, byte[]> kafkaSender(SenderOptions<String, byte[]> senderOptions) {
         return KafkaSender.create(senderOptions);
     }
 }
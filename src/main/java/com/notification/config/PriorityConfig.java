@@ -0,0 +1,82 @@
+package com.notification.config;
+
+import com.notification.model.dto.NotificationEvent;
+import com.notification.model.dto.NotificationPriority;
+import com.notification.service.execution.PriorityScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "notification.priority")
+@Getter
+@Setter
+public class PriorityConfig {
+
+    public static final String PRIORITY_METADATA = "priority";
+
+    private boolean enabled = false;
+    private int maxConcurrency = 256;
+    private int maxPending = 10000;
+    private NotificationPriority defaultPriority = NotificationPriority.NORMAL;
+    private Map<NotificationPriority, Lane> lanes = defaultLanes();
+
+    @Getter
+    @Setter
+    public static class Lane {
+        /** Share of dispatch slots the lane gets while other lanes are also waiting. */
+        private int weight = 1;
+        /** Optional dedicated topic; every record read from it belongs to this lane. */
+        private String topic;
+
+        public Lane() {
+        }
+
+        Lane(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The lane for a record: its topic's lane if it came from a dedicated lane topic, otherwise the event's
+     * {@code priority} field, then its {@code priority} metadata entry, then {@code default-priority}.
+     */
+    public NotificationPriority priorityOf(String topic, NotificationEvent event) {
+        for (Map.Entry<NotificationPriority, Lane> lane : lanes.entrySet()) {
+            if (topic != null && topic.equals(lane.getValue().getTopic())) {
+                return lane.getKey();
+            }
+        }
+        if (event.getPriority() != null) {
+            return event.getPriority();
+        }
+        Object priority = event.getMetadata() != null ? event.getMetadata().get(PRIORITY_METADATA) : null;
+        if (priority != null) {
+            try {
+                return NotificationPriority.fromValue(priority.toString());
+            } catch (IllegalArgumentException e) {
+                return defaultPriority;
+            }
+        }
+        return defaultPriority;
+    }
+
+    @Bean
+    public PriorityScheduler priorityScheduler(MeterRegistry meterRegistry) {
+        return new PriorityScheduler(enabled, maxConcurrency, lanes, meterRegistry);
+    }
+
+    private static Map<NotificationPriority, Lane> defaultLanes() {
+        Map<NotificationPriority, Lane> lanes = new EnumMap<>(NotificationPriority.class);
+        lanes.put(NotificationPriority.HIGH, new Lane(16));
+        lanes.put(NotificationPriority.NORMAL, new Lane(4));
+        lanes.put(NotificationPriority.BULK, new Lane(1));
+        return lanes;
+    }
+}
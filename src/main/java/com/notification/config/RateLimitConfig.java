@@ -0,0 +1,38 @@
+package com.notification.config;
+
+import com.notification.model.dto.NotificationSource;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notification.rate-limit")
+@Getter
+@Setter
+public class RateLimitConfig {
+
+    private boolean enabled = false;
+    private Channel email = new Channel();
+    private Channel whatsapp = new Channel();
+
+    @Getter
+    @Setter
+    public static class Channel {
+        private double rate = 10;
+        private double minRate = 0.5;
+        private double burst = 10;
+        private double decreaseFactor = 0.5;
+        private double increaseStep = 0.05;
+        private long decreaseCooldown = 1000;
+        private long maxWait = 30000;
+    }
+
+    public Channel forChannel(NotificationSource source) {
+        return switch (source) {
+            case EMAIL -> email;
+            case WHATSAPP -> whatsapp;
+            case REALTIME -> throw new IllegalArgumentException("Real-time notifications are not rate limited");
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.notification.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "notification.retry")
+@Getter
+@Setter
+public class RetryConfig {
+
+    private RetryMode mode = RetryMode.INLINE;
+    private String schedulerGroupId;
+    private List<Tier> tiers = new ArrayList<>(List.of(
+            new Tier("notifications-retry-10s", 10_000),
+            new Tier("notifications-retry-1m", 60_000),
+            new Tier("notifications-retry-10m", 600_000)
+    ));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tier {
+        private String topic;
+        private long delay;
+    }
+
+    public enum RetryMode {
+        /** Channel services retry with {@code Retry.backoff} while holding the record. */
+        INLINE,
+        /** Failed records are parked on delay topics and re-published to the main topic when due. */
+        TOPIC
+    }
+
+    public boolean isTopicMode() {
+        return mode == RetryMode.TOPIC;
+    }
+}
@@ -0,0 +1,46 @@
+package com.notification.controller;
+
+import com.notification.model.dto.DltReplayProgress;
+import com.notification.model.dto.DltReplayRequest;
+import com.notification.service.kafka.DltReplayService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/admin/dlt/replay")
+@RequiredArgsConstructor
+public class DltReplayController {
+
+    private final DltReplayService replayService;
+
+    @PostMapping
+    public Mono<ResponseEntity<DltReplayProgress>> startReplay(@Valid @RequestBody(required = false) DltReplayRequest request) {
+        DltReplayRequest replayRequest = request != null ? request : new DltReplayRequest();
+        return Mono.fromCallable(() -> replayService.start(replayRequest))
+                .map(progress -> ResponseEntity.status(HttpStatus.ACCEPTED).body(progress));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<DltReplayProgress>> getProgress(@PathVariable String id) {
+        return Mono.justOrEmpty(replayService.progress(id))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<DltReplayProgress>> cancelReplay(@PathVariable String id) {
+        return Mono.justOrEmpty(replayService.cancel(id))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
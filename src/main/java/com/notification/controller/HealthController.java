@@ -23,6 +23,7 @@ public class HealthController {
         health.put("status", "UP");
         health.put("service", "unified-notification-service");
         health.put("activeWebSocketConnections", webSocketHandler.getActiveConnectionsCount());
+        health.put("connectedWebSocketUsers", webSocketHandler.getConnectedUsersCount());
         health.put("timestamp", System.currentTimeMillis());
         
         return Mono.just(health);
@@ -0,0 +1,29 @@
+package com.notification.controller;
+
+import com.notification.model.dto.BatchIngestResult;
+import com.notification.service.kafka.NotificationIngestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationIngestController {
+
+    private final NotificationIngestService ingestService;
+
+    /**
+     * Accepts newline-delimited {@code NotificationEvent} JSON and streams back one result per line as NDJSON.
+     */
+    @PostMapping(path = "/batch",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchIngestResult> ingestBatch(ServerHttpRequest request) {
+        return ingestService.ingest(request.getBody());
+    }
+}
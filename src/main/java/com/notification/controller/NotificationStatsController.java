@@ -0,0 +1,32 @@
+package com.notification.controller;
+
+import com.notification.model.dto.NotificationStats;
+import com.notification.service.logging.NotificationStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/notifications/stats")
+@RequiredArgsConstructor
+public class NotificationStatsController {
+
+    private final NotificationStatsService statsService;
+
+    @GetMapping
+    public Mono<NotificationStats> getStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "HOUR") NotificationStats.Interval interval,
+            @RequestParam(required = false) String source) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        return statsService.stats(start, end, interval, source);
+    }
+}
@@ -0,0 +1,54 @@
+package com.notification.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one NDJSON line posted to {@code /api/notifications/batch}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchIngestResult {
+
+    /** 1-based line number in the request body; absent on the final line of an aborted upload. */
+    @JsonProperty("line")
+    private Long line;
+
+    @JsonProperty("status")
+    private Status status;
+
+    @JsonProperty("event_id")
+    private String eventId;
+
+    @JsonProperty("topic")
+    private String topic;
+
+    @JsonProperty("partition")
+    private Integer partition;
+
+    @JsonProperty("offset")
+    private Long offset;
+
+    @JsonProperty("errors")
+    private List<String> errors;
+
+    public enum Status {
+        /** Written to Kafka. */
+        ACCEPTED,
+        /** Not valid JSON or failed validation; nothing was written. */
+        REJECTED,
+        /** Valid, but Kafka did not accept it. */
+        FAILED,
+        /** The body could not be read any further; lines without a result were not processed. */
+        ABORTED
+    }
+}
@@ -0,0 +1,50 @@
+package com.notification.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DltReplayProgress {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("state")
+    private State state;
+
+    @JsonProperty("scanned")
+    private long scanned;
+
+    @JsonProperty("matched")
+    private long matched;
+
+    @JsonProperty("replayed")
+    private long replayed;
+
+    @JsonProperty("failed")
+    private long failed;
+
+    @JsonProperty("started_at")
+    private Instant startedAt;
+
+    @JsonProperty("finished_at")
+    private Instant finishedAt;
+
+    @JsonProperty("error")
+    private String error;
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+}
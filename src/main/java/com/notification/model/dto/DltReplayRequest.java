@@ -0,0 +1,44 @@
+package com.notification.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DltReplayRequest {
+
+    /** Only replay records whose {@code error} header contains this text. */
+    @JsonProperty("error_contains")
+    private String errorContains;
+
+    /** Only replay records dead-lettered at or after this time. */
+    @JsonProperty("from")
+    private Instant from;
+
+    /** Only replay records dead-lettered at or before this time; defaults to when the replay starts. */
+    @JsonProperty("to")
+    private Instant to;
+
+    /** Records re-published per second. */
+    @Positive
+    @JsonProperty("rate")
+    private Double rate;
+
+    /** Re-publishes in flight at once. */
+    @Positive
+    @JsonProperty("concurrency")
+    private Integer concurrency;
+
+    /** Stop after replaying this many records. */
+    @Positive
+    @JsonProperty("limit")
+    private Long limit;
+}
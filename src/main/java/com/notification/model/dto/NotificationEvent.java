@@ -1,6 +1,7 @@
 package com.notification.model.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.notification.model.validation.MessageOrTemplate;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,9 +14,15 @@ import java.util.Map;
 
 @Data
 @Builder
-
+@MessageOrTemplate
 public class NotificationEvent {
 
+    /** Metadata entry naming a message template to render instead of {@code message}. */
+    public static final String TEMPLATE_ID_METADATA = "template_id";
+
+    @JsonProperty("event_id")
+    private String eventId;
+
     @NotBlank(message = "User name is required")
     @JsonProperty("user_name")
     private String userName;
@@ -37,13 +44,15 @@ public class NotificationEvent {
     @JsonProperty("destination")
     private Destination destination;
 
-    @NotBlank(message = "Message is required")
     @JsonProperty("message")
     private String message;
 
     @JsonProperty("metadata")
     private Map<String, Object> metadata;
 
+    @JsonProperty("priority")
+    private NotificationPriority priority;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -57,9 +66,21 @@ public class NotificationEvent {
 
         @JsonProperty("user_id")
         private String userId;
+
+        @JsonProperty("topic")
+        private String topic;
     }
 
     public NotificationEvent(String userName, String username, String subject, NotificationSource source, Destination destination, String message, Map<String, Object> metadata) {
+        this(null, userName, username, subject, source, destination, message, metadata);
+    }
+
+    public NotificationEvent(String eventId, String userName, String username, String subject, NotificationSource source, Destination destination, String message, Map<String, Object> metadata) {
+        this(eventId, userName, username, subject, source, destination, message, metadata, null);
+    }
+
+    public NotificationEvent(String eventId, String userName, String username, String subject, NotificationSource source, Destination destination, String message, Map<String, Object> metadata, NotificationPriority priority) {
+        this.eventId = eventId;
         this.userName = userName;
         this.username = username;
         this.subject = subject;
@@ -67,6 +88,15 @@ public class NotificationEvent {
         this.destination = destination;
         this.message = message;
         this.metadata = metadata;
+        this.priority = priority;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
     }
 
     public String getUserName() {
@@ -125,6 +155,14 @@ public class NotificationEvent {
         this.metadata = metadata;
     }
 
+    public NotificationPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(NotificationPriority priority) {
+        this.priority = priority;
+    }
+
     public NotificationEvent() {
     }
 }
@@ -0,0 +1,58 @@
+package com.notification.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One {@code notification_logs} row as returned by the history API.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationHistoryEntry {
+
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("user_name")
+    private String userName;
+
+    @JsonProperty("username")
+    private String username;
+
+    @JsonProperty("subject")
+    private String subject;
+
+    @JsonProperty("source")
+    private String source;
+
+    @JsonProperty("destination")
+    private String destination;
+
+    @JsonProperty("message")
+    private String message;
+
+    /** Stored JSONB, written through as-is. */
+    @JsonRawValue
+    @JsonProperty("metadata")
+    private String metadata;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("retry_count")
+    private Integer retryCount;
+
+    @JsonProperty("error_message")
+    private String errorMessage;
+
+    @JsonProperty("created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package com.notification.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationHistoryPage {
+
+    @JsonProperty("items")
+    private List<NotificationHistoryEntry> items;
+
+    /** Pass back as {@code cursor} to fetch the next, older page; {@code null} on the last page. */
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package com.notification.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum NotificationPriority {
+    HIGH("HIGH"),
+    NORMAL("NORMAL"),
+    BULK("BULK");
+
+    private final String value;
+
+    NotificationPriority(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    @JsonCreator
+    public static NotificationPriority fromValue(String value) {
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            if (priority.value.equalsIgnoreCase(value)) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("Invalid notification priority: " + value);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.notification.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationStats {
+
+    @JsonProperty("from")
+    private LocalDateTime from;
+
+    @JsonProperty("to")
+    private LocalDateTime to;
+
+    @JsonProperty("interval")
+    private Interval interval;
+
+    /** Count per status over the whole window. */
+    @JsonProperty("totals")
+    private Map<String, Long> totals;
+
+    @JsonProperty("series")
+    private List<Point> series;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        @JsonProperty("bucket")
+        private LocalDateTime bucket;
+
+        @JsonProperty("source")
+        private String source;
+
+        @JsonProperty("status")
+        private String status;
+
+        @JsonProperty("count")
+        private long count;
+    }
+
+    public enum Interval {
+        MINUTE,
+        HOUR,
+        DAY
+    }
+}
@@ -3,5 +3,7 @@ package com.notification.model.dto;
 public enum NotificationStatus {
     SUCCESS,
     FAILED,
-    RETRY
+    RETRY,
+    BUFFERED,
+    UNDELIVERED
 }
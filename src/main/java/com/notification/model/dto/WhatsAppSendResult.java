@@ -0,0 +1,13 @@
+package com.notification.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhatsAppSendResult {
+    private String sid;
+    private String status;
+}
@@ -0,0 +1,26 @@
+package com.notification.model.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A notification needs either a {@code message} or a {@code metadata.template_id} to render one from.
+ */
+@Documented
+@Constraint(validatedBy = MessageOrTemplateValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MessageOrTemplate {
+
+    String message() default "Message or metadata.template_id is required";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
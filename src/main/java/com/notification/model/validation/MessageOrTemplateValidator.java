@@ -0,0 +1,29 @@
+package com.notification.model.validation;
+
+import com.notification.model.dto.NotificationEvent;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class MessageOrTemplateValidator implements ConstraintValidator<MessageOrTemplate, NotificationEvent> {
+
+    @Override
+    public boolean isValid(NotificationEvent event, ConstraintValidatorContext context) {
+        if (event == null) {
+            return true;
+        }
+        if (event.getMessage() != null && !event.getMessage().isBlank()) {
+            return true;
+        }
+        Object templateId = event.getMetadata() != null ? event.getMetadata().get(NotificationEvent.TEMPLATE_ID_METADATA) : null;
+        if (templateId != null && !templateId.toString().isBlank()) {
+            return true;
+        }
+
+        // Reported against message, where the field-level @NotBlank used to report it
+        context.disableDefaultConstraintViolation();
+        context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate())
+                .addPropertyNode("message")
+                .addConstraintViolation();
+        return false;
+    }
+}
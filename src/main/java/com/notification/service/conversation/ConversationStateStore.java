@@ -0,0 +1,324 @@
+package com.notification.service.conversation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversation state of WhatsApp users, one Redis string per number under {@code whatsapp:state:<number>}.
+ * <p>
+ * Reading the state and refreshing its session TTL is one scripted round trip, and so is moving to the next state:
+ * {@link #advance} is a compare-and-set against the state the message was handled in, which also refreshes the TTL.
+ * A missing key is {@code IDLE}, so returning to {@code IDLE} deletes the key.
+ * <p>
+ * States are also kept in a short-lived local near-cache, so a message for a conversation seen recently needs only
+ * the transition call. Entries are evicted through Redis keyspace notifications when another replica changes or
+ * deletes the key, or when it expires, so the cache only turns on when Redis publishes those notifications; the
+ * server configuration is changed only if {@code configure-keyspace-events} allows it. The cache is only a hint:
+ * a stale entry makes the compare-and-set fail and hands back the current state, never an incorrect transition.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationStateStore {
+
+    public static final String STATE_IDLE = "IDLE";
+
+    private static final String KEY_PREFIX = "whatsapp:state:";
+    private static final String KEYSPACE_PATTERN = "__keyspace@*__:" + KEY_PREFIX + "*";
+    // K: keyspace channel, $: SET, g: DEL and EXPIRE, x: expired, e: evicted
+    private static final String REQUIRED_KEYSPACE_EVENTS = "K$gxe";
+
+    private static final Duration SESSION_TIMEOUT = Duration.ofHours(24);
+
+    private static final RedisScript<String> LOAD = RedisScript.of("""
+            local state = redis.call('get', KEYS[1])
+            if not state then
+                return ARGV[2]
+            end
+            redis.call('pexpire', KEYS[1], ARGV[1])
+            return state
+            """, String.class);
+
+    private static final RedisScript<String> ADVANCE = RedisScript.of("""
+            local current = redis.call('get', KEYS[1]) or ARGV[3]
+            if current == ARGV[1] and ARGV[2] ~= current then
+                if ARGV[2] == ARGV[3] then
+                    redis.call('del', KEYS[1])
+                else
+                    redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[4])
+                end
+            else
+                redis.call('pexpire', KEYS[1], ARGV[4])
+            end
+            return current
+            """, String.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.conversation.near-cache.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    @Value("${notification.conversation.near-cache.ttl:60000}")
+    private long nearCacheTtl;
+
+    @Value("${notification.conversation.near-cache.max-size:100000}")
+    private int nearCacheMaxSize;
+
+    @Value("${notification.conversation.near-cache.configure-keyspace-events:false}")
+    private boolean configureKeyspaceEvents;
+
+    private final Map<String, CachedState> nearCache = new ConcurrentHashMap<>();
+    // Notifications still expected for this replica's own writes; those must not evict the state the write cached
+    private final Map<String, Integer> ownEvents = new ConcurrentHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    private volatile boolean nearCacheActive;
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    /**
+     * A conversation's state and whether it was just read from Redis, in which case its TTL is already refreshed.
+     */
+    public record Snapshot(String state, boolean fresh) {
+    }
+
+    @PostConstruct
+    public void start() {
+        cacheHits = Counter.builder("notification.conversation.state.cache")
+                .description("Conversation state lookups by near-cache result")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        cacheMisses = Counter.builder("notification.conversation.state.cache")
+                .description("Conversation state lookups by near-cache result")
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        if (!nearCacheEnabled) {
+            return;
+        }
+
+        subscriptions.add(ensureKeyspaceEvents()
+                .filter(Boolean::booleanValue)
+                .flatMap(ready -> listenerContainer.receiveLater(PatternTopic.of(KEYSPACE_PATTERN)))
+                .flatMapMany(messages -> {
+                    nearCacheActive = true;
+                    log.info("Conversation state near-cache enabled, ttl={}ms", nearCacheTtl);
+                    return messages;
+                })
+                .subscribe(
+                        message -> onKeyspaceEvent(message.getChannel(), message.getMessage()),
+                        error -> {
+                            log.error("Conversation state invalidation listener terminated, disabling near-cache", error);
+                            disableNearCache();
+                        },
+                        this::disableNearCache
+                ));
+
+        subscriptions.add(Flux.interval(Duration.ofMillis(nearCacheTtl))
+                .subscribe(tick -> sweep()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+        disableNearCache();
+    }
+
+    /**
+     * The number's current state, refreshing its session TTL when it is read from Redis.
+     */
+    public Mono<Snapshot> load(String number) {
+        String key = KEY_PREFIX + number;
+        CachedState cached = nearCacheActive ? nearCache.get(key) : null;
+        if (cached != null && cached.expiresAt() > System.nanoTime()) {
+            cacheHits.increment();
+            return Mono.just(new Snapshot(cached.state(), false));
+        }
+
+        cacheMisses.increment();
+        return redisTemplate.execute(LOAD, List.of(key), List.of(String.valueOf(SESSION_TIMEOUT.toMillis()), STATE_IDLE))
+                .next()
+                .defaultIfEmpty(STATE_IDLE)
+                .doOnNext(state -> cache(key, state))
+                .map(state -> new Snapshot(state, true));
+    }
+
+    /**
+     * Moves the number from {@code expected} to {@code next} if it is still in {@code expected}, and refreshes its
+     * session TTL either way.
+     *
+     * @return the state before the call; the transition happened only if it equals {@code expected}
+     */
+    public Mono<String> advance(String number, String expected, String next) {
+        String key = KEY_PREFIX + number;
+        boolean writes = !expected.equals(next);
+
+        return Mono.defer(() -> {
+                    if (writes) {
+                        expectOwnEvent(key);
+                    }
+                    return redisTemplate.execute(ADVANCE, List.of(key),
+                                    List.of(expected, next, STATE_IDLE, String.valueOf(SESSION_TIMEOUT.toMillis())))
+                            .next();
+                })
+                .defaultIfEmpty(STATE_IDLE)
+                .doOnNext(previous -> {
+                    boolean applied = previous.equals(expected);
+                    if (writes && !applied) {
+                        consumeOwnEvent(key);
+                    }
+                    cache(key, applied ? next : previous);
+                })
+                .doOnError(error -> {
+                    if (writes) {
+                        consumeOwnEvent(key);
+                    }
+                    nearCache.remove(key);
+                });
+    }
+
+    /**
+     * Forgets the number's conversation, returning it to {@code IDLE}.
+     */
+    public Mono<Void> clear(String number) {
+        String key = KEY_PREFIX + number;
+
+        return Mono.defer(() -> {
+                    expectOwnEvent(key);
+                    return redisTemplate.delete(key);
+                })
+                .doOnNext(deleted -> {
+                    if (deleted == 0) {
+                        consumeOwnEvent(key);
+                    }
+                    cache(key, STATE_IDLE);
+                })
+                .doOnError(error -> {
+                    consumeOwnEvent(key);
+                    nearCache.remove(key);
+                })
+                .then();
+    }
+
+    private void onKeyspaceEvent(String channel, String event) {
+        // pexpire from the scripts only extends the TTL, the state is unchanged
+        if ("expire".equals(event)) {
+            return;
+        }
+        String key = channel.substring(channel.indexOf("__:") + 3);
+        if (("set".equals(event) || "del".equals(event)) && consumeOwnEvent(key)) {
+            return;
+        }
+        nearCache.remove(key);
+    }
+
+    private void cache(String key, String state) {
+        if (!nearCacheActive) {
+            return;
+        }
+        if (nearCache.size() >= nearCacheMaxSize && !nearCache.containsKey(key)) {
+            return;
+        }
+        nearCache.put(key, new CachedState(state, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nearCacheTtl)));
+    }
+
+    private void expectOwnEvent(String key) {
+        if (nearCacheActive) {
+            ownEvents.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private boolean consumeOwnEvent(String key) {
+        boolean[] consumed = {false};
+        ownEvents.computeIfPresent(key, (k, pending) -> {
+            consumed[0] = true;
+            return pending > 1 ? pending - 1 : null;
+        });
+        return consumed[0];
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        nearCache.values().removeIf(cached -> cached.expiresAt() <= now);
+        // Counts whose notification never arrived (e.g. across a reconnect) are dropped; the worst case is one
+        // extra eviction
+        ownEvents.keySet().retainAll(nearCache.keySet());
+    }
+
+    private void disableNearCache() {
+        nearCacheActive = false;
+        nearCache.clear();
+        ownEvents.clear();
+    }
+
+    /**
+     * Makes sure Redis publishes the keyspace events the near-cache relies on, enabling them only if
+     * {@code configure-keyspace-events} is set.
+     *
+     * @return {@code false} if they are off and cannot be turned on, in which case the near-cache stays off
+     */
+    private Mono<Boolean> ensureKeyspaceEvents() {
+        return redisTemplate.execute(connection -> connection.serverCommands().getConfig("notify-keyspace-events"))
+                .next()
+                .map(config -> config.getProperty("notify-keyspace-events", ""))
+                .flatMap(current -> {
+                    String missing = missingKeyspaceEvents(current);
+                    if (missing.isEmpty()) {
+                        return Mono.just(true);
+                    }
+                    if (!configureKeyspaceEvents) {
+                        log.info("Redis notify-keyspace-events is '{}', missing '{}'; conversation state near-cache disabled",
+                                current, missing);
+                        return Mono.just(false);
+                    }
+                    return redisTemplate.execute(connection -> connection.serverCommands()
+                                    .setConfig("notify-keyspace-events", current + missing))
+                            .then(Mono.fromSupplier(() -> {
+                                log.info("Enabled Redis keyspace events '{}' for the conversation state near-cache", missing);
+                                return true;
+                            }));
+                })
+                .onErrorResume(error -> {
+                    log.warn("Could not check or enable Redis keyspace events, conversation state near-cache disabled: {}",
+                            error.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    private static String missingKeyspaceEvents(String current) {
+        StringBuilder missing = new StringBuilder();
+        for (char flag : REQUIRED_KEYSPACE_EVENTS.toCharArray()) {
+            // A is the alias for every event class except key-miss and new-key events
+            boolean covered = current.indexOf(flag) >= 0 || (flag != 'K' && current.indexOf('A') >= 0);
+            if (!covered) {
+                missing.append(flag);
+            }
+        }
+        return missing.toString();
+    }
+
+    private record CachedState(String state, long expiresAt) {
+    }
+}
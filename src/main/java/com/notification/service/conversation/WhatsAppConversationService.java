@@ -1,17 +1,21 @@
 package com.notification.service.conversation;
 
 import com.notification.model.dto.NotificationEvent;
+import com.notification.model.dto.NotificationPriority;
 import com.notification.model.dto.NotificationSource;
+import com.notification.service.execution.PriorityScheduler;
 import com.notification.service.kafka.JobEventProducer;
 import com.notification.service.llm.GroqService;
 import com.notification.service.notification.WhatsAppNotificationService;
+import com.notification.service.template.TemplateEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -21,129 +25,122 @@ public class WhatsAppConversationService {
     private final WhatsAppNotificationService whatsAppService;
     private final GroqService groqService;
     private final JobEventProducer jobEventProducer;
-    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ConversationStateStore stateStore;
+    private final TemplateEngine templateEngine;
+    private final PriorityScheduler priorityScheduler;
 
-    private static final String STATE_KEY_PREFIX = "whatsapp:state:";
-
-    private static final Duration SESSION_TIMEOUT = Duration.ofHours(24);
-
-    private static final String STATE_IDLE = "IDLE";
+    private static final String STATE_IDLE = ConversationStateStore.STATE_IDLE;
     private static final String STATE_AWAITING_CONFIRMATION = "AWAITING_CONFIRMATION";
     private static final String STATE_AWAITING_DETAILS = "AWAITING_DETAILS";
 
+    private static final String MAIN_MENU_TEMPLATE = "whatsapp-main-menu";
+    private static final String JOB_CONFIRM_TEMPLATE = "whatsapp-job-confirm";
+    private static final String JOB_DETAILS_TEMPLATE = "whatsapp-job-details";
+    private static final String JOB_CREATED_TEMPLATE = "whatsapp-job-created";
+
+    /**
+     * An inbound message and the state it is being handled in. {@code fresh} means the state was just read from
+     * Redis, which already refreshed the session TTL.
+     */
+    private record Conversation(String from, String input, String state, boolean fresh) {
+
+        Conversation inState(String current) {
+            return new Conversation(from, input, current, true);
+        }
+    }
+
     public Mono<Void> processIncomingMessage(String fromNumber, String messageBody) {
-        String redisKey = STATE_KEY_PREFIX + fromNumber;
         String input = messageBody.trim();
 
         if (isResetCommand(input)) {
-            return resetConversation(fromNumber, redisKey);
+            return resetConversation(fromNumber);
         }
 
-        return redisTemplate.opsForValue().get(redisKey)
-                .defaultIfEmpty(STATE_IDLE)
-                .flatMap(state -> {
-                    return redisTemplate.expire(redisKey, SESSION_TIMEOUT)
-                            .then(dispatchState(state, fromNumber, input, redisKey));
-                });
+        return stateStore.load(fromNumber)
+                .flatMap(snapshot -> dispatchState(new Conversation(fromNumber, input, snapshot.state(), snapshot.fresh())));
     }
 
-    private Mono<Void> dispatchState(String state, String from, String input, String redisKey) {
-        return switch (state) {
-            case STATE_IDLE -> handleMainMenu(from, input, redisKey);
-            case STATE_AWAITING_CONFIRMATION -> handleConfirmation(from, input, redisKey);
-            case STATE_AWAITING_DETAILS -> handleJobDetails(from, input, redisKey);
-            default -> resetConversation(from, redisKey);
+    private Mono<Void> dispatchState(Conversation conversation) {
+        return switch (conversation.state()) {
+            case STATE_IDLE -> handleMainMenu(conversation);
+            case STATE_AWAITING_CONFIRMATION -> handleConfirmation(conversation);
+            case STATE_AWAITING_DETAILS -> handleJobDetails(conversation);
+            default -> resetConversation(conversation.from());
         };
     }
 
 
-    private Mono<Void> handleMainMenu(String from, String input, String redisKey) {
+    private Mono<Void> handleMainMenu(Conversation conversation) {
+        String from = conversation.from();
+        String input = conversation.input();
         if (input.equals("1") || input.toLowerCase().contains("job") || input.toLowerCase().contains("hi")) {
-            return updateState(redisKey, STATE_AWAITING_CONFIRMATION)
-                    .then(reply(from, """
-                            👷 *Job Posting Service*
-                            
-                            Do you want to post a new job?
-                            
-                            *1.* Yes
-                            *2.* No
-                            
-                            _Reply with a number._"""));
+            return advance(conversation, STATE_AWAITING_CONFIRMATION,
+                    () -> reply(from, templateEngine.render(JOB_CONFIRM_TEMPLATE, Map.of())));
         }
 
-        return reply(from, """
-                👋 Welcome! How can I help you?
-                
-                *1.* Post a Job
-                *0.* Clear Memory / Reset
-                
-                _Reply with a number._""");
+        return advance(conversation, STATE_IDLE, () -> reply(from, templateEngine.render(MAIN_MENU_TEMPLATE, Map.of())));
     }
 
-    private Mono<Void> handleConfirmation(String from, String input, String redisKey) {
+    private Mono<Void> handleConfirmation(Conversation conversation) {
+        String from = conversation.from();
+        String input = conversation.input();
         if (input.equals("1") || input.equalsIgnoreCase("yes")) {
-            return updateState(redisKey, STATE_AWAITING_DETAILS)
-                    .then(reply(from, """
-                            ✅ Great! Please describe the job details.
-                            
-                            Include:
-                            - Role (e.g., Painter)
-                            - Location
-                            - Wage/Salary
-                            - Description
-                            
-                            *Example:* "Need a plumber in Whitefield, 500rs/hour to fix a leak."
-                            
-                            _Type your message below:_"""));
+            return advance(conversation, STATE_AWAITING_DETAILS,
+                    () -> reply(from, templateEngine.render(JOB_DETAILS_TEMPLATE, Map.of())));
         } else if (input.equals("2") || input.equalsIgnoreCase("no")) {
-            return resetConversation(from, redisKey, "👌 No problem. Type *1* anytime to start again.");
+            return advance(conversation, STATE_IDLE, () -> reply(from, "👌 No problem. Type *1* anytime to start again."));
         }
 
-        return reply(from, "❌ Invalid option. Please reply *1* for Yes or *2* for No.");
+        return advance(conversation, STATE_AWAITING_CONFIRMATION,
+                () -> reply(from, "❌ Invalid option. Please reply *1* for Yes or *2* for No."));
     }
 
-    private Mono<Void> handleJobDetails(String from, String input, String redisKey) {
+    private Mono<Void> handleJobDetails(Conversation conversation) {
+        String from = conversation.from();
+        String input = conversation.input();
         if (input.length() < 10) {
-            return reply(from, "⚠️ That seems too short. Please provide more details about the job.");
+            return advance(conversation, STATE_AWAITING_DETAILS,
+                    () -> reply(from, "⚠️ That seems too short. Please provide more details about the job."));
         }
 
-        return reply(from, "⏳ Processing details... please wait.")
+        return advance(conversation, STATE_AWAITING_DETAILS, () -> reply(from, "⏳ Processing details... please wait.")
                 .then(groqService.extractJobDetails(input, from))
                 .flatMap(jobEvent -> jobEventProducer.sendJobCreatedEvent(jobEvent).thenReturn(jobEvent))
                 .flatMap(jobEvent -> {
-                    String successMsg = String.format("""
-                            🎉 *Job Created Successfully!*
-                            
-                            👷 **Role:** %s
-                            📍 **Location:** %s
-                            💰 **Wage:** %s
-                            
-                            We are notifying available workers now. You will receive updates shortly.
-                            
-                            _Type *1* to post another job._""",
-                            jobEvent.getJobTitle(), jobEvent.getLocation(), jobEvent.getWage());
-
-                    return updateState(redisKey, STATE_IDLE)
+                    Map<String, String> details = new HashMap<>();
+                    details.put("role", jobEvent.getJobTitle());
+                    details.put("location", jobEvent.getLocation());
+                    details.put("wage", jobEvent.getWage());
+                    String successMsg = templateEngine.render(JOB_CREATED_TEMPLATE, details);
+
+                    // The job is created either way; a conversation reset or restarted meanwhile is left alone
+                    return stateStore.advance(from, STATE_AWAITING_DETAILS, STATE_IDLE)
                             .then(reply(from, successMsg));
                 })
                 .onErrorResume(e -> {
                     log.error("Error processing job", e);
                     return reply(from, "⚠️ Sorry, I couldn't understand that. Please try describing the job again.");
-                });
+                }));
     }
 
-
-    private Mono<Void> updateState(String key, String newState) {
-        return redisTemplate.opsForValue().set(key, newState, SESSION_TIMEOUT).then();
-    }
-
-    private Mono<Void> resetConversation(String from, String key) {
-        return resetConversation(from, key, "🔄 Memory cleared. Type *1* to start.");
+    /**
+     * Moves the conversation to {@code next} (refreshing the session TTL) and then runs {@code then}, in one Redis
+     * round trip. Skips Redis entirely when the state stays the same and was just loaded. If another message moved
+     * the conversation since it was loaded, this message is handled again in the current state instead.
+     */
+    private Mono<Void> advance(Conversation conversation, String next, Supplier<Mono<Void>> then) {
+        if (conversation.fresh() && next.equals(conversation.state())) {
+            return then.get();
+        }
+        return stateStore.advance(conversation.from(), conversation.state(), next)
+                .flatMap(previous -> previous.equals(conversation.state())
+                        ? then.get()
+                        : dispatchState(conversation.inState(previous)));
     }
 
-    private Mono<Void> resetConversation(String from, String key, String message) {
-        return redisTemplate.delete(key)
-                .then(reply(from, message));
+    private Mono<Void> resetConversation(String from) {
+        return stateStore.clear(from)
+                .then(reply(from, "🔄 Memory cleared. Type *1* to start."));
     }
 
     private boolean isResetCommand(String input) {
@@ -153,12 +150,13 @@ public class WhatsAppConversationService {
     private Mono<Void> reply(String to, String message) {
         NotificationEvent event = NotificationEvent.builder()
                 .source(NotificationSource.WHATSAPP)
-                .destination(new NotificationEvent.Destination(to, null, null))
+                .destination(new NotificationEvent.Destination(to, null, null, null))
                 .message(message)
                 .userName("System")
                 .username("system")
                 .subject("Reply")
+                .priority(NotificationPriority.HIGH)
                 .build();
-        return whatsAppService.sendNotification(event);
+        return priorityScheduler.submit(NotificationPriority.HIGH, () -> whatsAppService.sendNotification(event));
     }
 }
\ No newline at end of file
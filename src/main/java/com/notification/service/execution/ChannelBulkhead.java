@@ -0,0 +1,167 @@
+package com.notification.service.execution;
+
+import com.notification.config.BulkheadConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Isolated worker pool for the blocking calls of a single delivery channel, so that a slow provider
+ * on one channel cannot exhaust the threads another channel depends on.
+ * <p>
+ * In {@link ExecutionMode#PLATFORM} mode tasks beyond {@code threadCap} wait in the scheduler queue. In
+ * {@link ExecutionMode#VIRTUAL} mode every task gets a virtual thread and waits on a semaphore of
+ * {@code maxConcurrency} permits instead, so thousands of slow calls cost no more than thousands of parked
+ * virtual threads.
+ * <p>
+ * Either way calls are admitted against one shared count before they are scheduled: at most as many as may run at
+ * once ({@code threadCap} or {@code maxConcurrency}) plus {@code queueCapacity} may be in the bulkhead, so at most
+ * {@code queueCapacity} wait. Anything past that is rejected with a {@link RejectedExecutionException}. The
+ * scheduler's own per-thread queue limit is never the one that bites.
+ */
+@Slf4j
+public class ChannelBulkhead {
+
+    private final String channel;
+    private final Scheduler scheduler;
+    private final Semaphore limiter;
+    private final int capacity;
+    // Admitted calls, waiting or running
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Timer queueWaitTimer;
+    private final Timer executionTimer;
+    private final Counter rejectedCounter;
+
+    public ChannelBulkhead(String channel, ExecutionMode mode, BulkheadConfig.Channel settings, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        int queueCapacity = settings.getQueueCapacity();
+
+        if (mode == ExecutionMode.VIRTUAL) {
+            ThreadFactory factory = Thread.ofVirtual().name(channel + "-vt-", 0).factory();
+            this.scheduler = Schedulers.fromExecutorService(Executors.newThreadPerTaskExecutor(factory), channel + "-bulkhead");
+            this.limiter = new Semaphore(settings.getMaxConcurrency(), true);
+            this.capacity = settings.getMaxConcurrency() + queueCapacity;
+        } else {
+            this.scheduler = Schedulers.newBoundedElastic(settings.getThreadCap(), queueCapacity, channel + "-bulkhead");
+            this.limiter = null;
+            this.capacity = settings.getThreadCap() + queueCapacity;
+        }
+
+        this.queueWaitTimer = Timer.builder("notification.bulkhead.queue.wait")
+                .description("Time a blocking provider call waited for a bulkhead thread")
+                .tag("channel", channel)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("notification.bulkhead.execution")
+                .description("Time spent inside a blocking provider call")
+                .tag("channel", channel)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("notification.bulkhead.rejected")
+                .description("Provider calls rejected because the bulkhead queue was full")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("notification.bulkhead.active", active, AtomicInteger::get)
+                .description("Provider calls currently running in the bulkhead")
+                .tag("channel", channel)
+                .register(meterRegistry);
+
+        Gauge.builder("notification.bulkhead.waiting", this, bulkhead -> bulkhead.admitted.get() - bulkhead.active.get())
+                .description("Provider calls admitted to the bulkhead and not yet running")
+                .tag("channel", channel)
+                .register(meterRegistry);
+
+        log.info("Created {} bulkhead in {} mode (threads={}, maxConcurrency={}, queue={})", channel, mode,
+                settings.getThreadCap(), settings.getMaxConcurrency(), queueCapacity);
+    }
+
+    public <T> Mono<T> call(Callable<T> task) {
+        return Mono.defer(() -> {
+                    if (admitted.incrementAndGet() > capacity) {
+                        admitted.decrementAndGet();
+                        return Mono.error(new RejectedExecutionException(channel + " bulkhead queue is full"));
+                    }
+                    Admission admission = new Admission();
+                    long submitted = System.nanoTime();
+                    return Mono.fromCallable(() -> execute(task, submitted, admission))
+                            .subscribeOn(scheduler)
+                            // Cancelled or refused before it started; once started, execute gives the slot back
+                            .doFinally(signal -> {
+                                if (!admission.started) {
+                                    admission.release();
+                                }
+                            });
+                })
+                .doOnError(RejectedExecutionException.class, e -> {
+                    rejectedCounter.increment();
+                    log.warn("{} bulkhead is saturated, rejecting call", channel);
+                });
+    }
+
+    public Mono<Void> run(Runnable task) {
+        return call(() -> {
+            task.run();
+            return Boolean.TRUE;
+        }).then();
+    }
+
+    public void dispose() {
+        scheduler.dispose();
+    }
+
+    private <T> T execute(Callable<T> task, long submitted, Admission admission) throws Exception {
+        admission.started = true;
+        if (limiter != null) {
+            // Runs on a virtual thread, so parking here does not tie up a carrier thread
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                admission.release();
+                throw e;
+            }
+        }
+
+        long started = System.nanoTime();
+        queueWaitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+        active.incrementAndGet();
+        try {
+            return task.call();
+        } finally {
+            active.decrementAndGet();
+            executionTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (limiter != null) {
+                limiter.release();
+            }
+            admission.release();
+        }
+    }
+
+    /**
+     * One admitted call's slot, given back exactly once.
+     */
+    private final class Admission {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean started;
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                admitted.decrementAndGet();
+            }
+        }
+    }
+}
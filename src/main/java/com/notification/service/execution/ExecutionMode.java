@@ -0,0 +1,8 @@
+package com.notification.service.execution;
+
+public enum ExecutionMode {
+    /** Blocking calls run on a bounded pool of platform threads. */
+    PLATFORM,
+    /** Every blocking call gets its own virtual thread; a semaphore caps how many run at once. */
+    VIRTUAL
+}
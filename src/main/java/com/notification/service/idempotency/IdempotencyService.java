@@ -0,0 +1,215 @@
+package com.notification.service.idempotency;
+
+import com.notification.model.dto.NotificationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Makes sure a notification redelivered by Kafka (after a rebalance or crash before the offset was committed)
+ * does not reach the provider a second time.
+ * <p>
+ * Events are keyed by {@code event_id}, or by a SHA-256 of the record value as received when there is none. Completed
+ * keys are remembered in a local LRU, so most duplicates never leave the JVM; otherwise the key is claimed with
+ * {@code SET NX} in Redis, which also catches duplicates landing on another replica. The claim lives for
+ * {@code processing-ttl} while the send runs, is extended to {@code ttl} once it succeeds and is removed if it
+ * fails so the retry path can send again.
+ * <p>
+ * Only a {@code done} key marks a duplicate. A key still {@code processing} may belong to a send that died with its
+ * node, so the record fails with {@link NotificationInProgressException} instead of being skipped, and comes back
+ * through the retry path once that claim has completed or expired.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private static final String KEY_PREFIX = "notification:dedup:";
+    private static final String PROCESSING = "processing";
+    private static final String DONE = "done";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.idempotency.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.idempotency.local-cache-size:100000}")
+    private int localCacheSize;
+
+    @Value("${notification.idempotency.ttl:86400}")
+    private long ttlSeconds;
+
+    @Value("${notification.idempotency.processing-ttl:300}")
+    private long processingTtlSeconds;
+
+    private Map<String, Long> completed;
+
+    private Counter localHitCounter;
+    private Counter redisHitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        completed = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > localCacheSize;
+            }
+        };
+
+        localHitCounter = Counter.builder("notification.idempotency.hits")
+                .description("Duplicate notifications skipped")
+                .tag("cache", "local")
+                .register(meterRegistry);
+        redisHitCounter = Counter.builder("notification.idempotency.hits")
+                .description("Duplicate notifications skipped")
+                .tag("cache", "redis")
+                .register(meterRegistry);
+        missCounter = Counter.builder("notification.idempotency.misses")
+                .description("Notifications seen for the first time")
+                .register(meterRegistry);
+        Gauge.builder("notification.idempotency.local.size", this, IdempotencyService::localSize)
+                .description("Completed keys held in the local dedup cache")
+                .register(meterRegistry);
+
+        log.info("Idempotent delivery enabled: localCacheSize={}, ttl={}s", localCacheSize, ttlSeconds);
+    }
+
+    /**
+     * Runs {@code send} unless the same event has already been sent, or is being sent right now.
+     *
+     * @param payload the record value the event was decoded from, hashed when the event has no id
+     * @param send    only invoked once the event is claimed, so nothing is buffered or sent for a duplicate
+     */
+    public Mono<Void> deduplicate(NotificationEvent event, byte[] payload, Supplier<Mono<Void>> send) {
+        if (!enabled) {
+            return Mono.defer(send);
+        }
+
+        return Mono.fromCallable(() -> keyFor(event, payload)).flatMap(key -> {
+            if (isCompletedLocally(key)) {
+                localHitCounter.increment();
+                log.info("Skipping duplicate notification {} (local)", key);
+                return Mono.empty();
+            }
+
+            return claim(key).flatMap(claimed -> {
+                if (!claimed) {
+                    redisHitCounter.increment();
+                    log.info("Skipping duplicate notification {} (redis)", key);
+                    return Mono.empty();
+                }
+                missCounter.increment();
+                return Mono.defer(send)
+                        .then(markCompleted(key))
+                        .onErrorResume(error -> release(key).then(Mono.error(error)));
+            });
+        });
+    }
+
+    /**
+     * @return {@code true} if this call now holds the claim, {@code false} if the event was already sent
+     */
+    private Mono<Boolean> claim(String key) {
+        return redisTemplate.opsForValue()
+                .setIfAbsent(KEY_PREFIX + key, PROCESSING, Duration.ofSeconds(processingTtlSeconds))
+                .flatMap(claimed -> claimed
+                        ? Mono.just(true)
+                        : redisTemplate.opsForValue().get(KEY_PREFIX + key)
+                                .flatMap(state -> DONE.equals(state)
+                                        ? Mono.just(false)
+                                        : Mono.<Boolean>error(new NotificationInProgressException(key)))
+                                // Released or expired since the SET NX, so it can be claimed again
+                                .switchIfEmpty(Mono.defer(() -> claim(key))));
+    }
+
+    /**
+     * Forgets that an event with an {@code event_id} was sent, for events that were acknowledged and then failed
+     * after all, so that replaying them from the dead letter topic sends them again. Events without an id are keyed
+     * by their record value, which a re-encoded dead letter does not share.
+     */
+    public Mono<Void> forget(NotificationEvent event) {
+        if (!enabled || event.getEventId() == null || event.getEventId().isBlank()) {
+            return Mono.empty();
+        }
+        String key = event.getEventId();
+        synchronized (completed) {
+            completed.remove(key);
+        }
+        return release(key);
+    }
+
+    private String keyFor(NotificationEvent event, byte[] payload) {
+        if (event.getEventId() != null && !event.getEventId().isBlank()) {
+            return event.getEventId();
+        }
+        return "sha256:" + HexFormat.of().formatHex(sha256().digest(payload));
+    }
+
+    private Mono<Void> markCompleted(String key) {
+        long expiresAt = System.currentTimeMillis() + Duration.ofSeconds(ttlSeconds).toMillis();
+        synchronized (completed) {
+            completed.put(key, expiresAt);
+        }
+        return redisTemplate.opsForValue()
+                .set(KEY_PREFIX + key, DONE, Duration.ofSeconds(ttlSeconds))
+                .doOnError(error -> log.warn("Failed to record completed notification {}", key, error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Void> release(String key) {
+        return redisTemplate.delete(KEY_PREFIX + key)
+                .doOnError(error -> log.warn("Failed to release dedup claim {}", key, error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private boolean isCompletedLocally(String key) {
+        synchronized (completed) {
+            Long expiresAt = completed.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt < System.currentTimeMillis()) {
+                completed.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private int localSize() {
+        synchronized (completed) {
+            return completed.size();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.notification.service.idempotency;
+
+/**
+ * The event is claimed by a send that has not finished, possibly on a node that crashed or lost its partitions.
+ * The record must not be acknowledged: it goes through the retry path and is sent once the claim completes or
+ * expires.
+ */
+public class NotificationInProgressException extends RuntimeException {
+
+    public NotificationInProgressException(String key) {
+        super("Notification " + key + " is already being sent");
+    }
+}
@@ -0,0 +1,285 @@
+package com.notification.service.kafka;
+
+import com.notification.config.KafkaConfig;
+import com.notification.config.RateLimitConfig;
+import com.notification.model.dto.DltReplayProgress;
+import com.notification.model.dto.DltReplayRequest;
+import com.notification.service.ratelimit.AdaptiveRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+import reactor.kafka.receiver.ReceiverRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the dead letter topic and re-publishes matching records to the topic they originally came from.
+ * <p>
+ * Each replay reads the DLT with its own throwaway consumer group, starting at {@code from} (or the beginning)
+ * and stopping at the end offsets seen when it started, so records dead-lettered while it runs are left alone.
+ * Re-publishing is paced by a token bucket at the requested rate with a cap on sends in flight. Progress is
+ * kept in memory on the node that runs the replay, and a finished replay is forgotten {@code retention}
+ * milliseconds after it ends.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DltReplayService {
+
+    public static final String REPLAYED_HEADER = "dlt-replay-id";
+
+    private static final List<String> DLT_HEADERS = List.of(
+            RetryTopicService.ERROR_HEADER, RetryTopicService.ORIGINAL_TOPIC_HEADER,
+            RetryTopicService.ATTEMPT_HEADER, RetryTopicService.DUE_AT_HEADER);
+
+    private final ReceiverOptions<String, byte[]> receiverOptions;
+    private final KafkaProducerPipeline producerPipeline;
+    private final KafkaConfig kafkaConfig;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.dlt-replay.default-rate:50}")
+    private double defaultRate;
+
+    @Value("${notification.dlt-replay.default-concurrency:8}")
+    private int defaultConcurrency;
+
+    @Value("${notification.dlt-replay.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${notification.dlt-replay.idle-timeout:30000}")
+    private long idleTimeout;
+
+    @Value("${notification.dlt-replay.retention:86400000}")
+    private long retention;
+
+    private final Map<String, ReplayJob> jobs = new ConcurrentHashMap<>();
+
+    public DltReplayProgress start(DltReplayRequest request) {
+        if (request.getFrom() != null && request.getTo() != null && request.getFrom().isAfter(request.getTo())) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        double rate = request.getRate() != null ? request.getRate() : defaultRate;
+        int concurrency = Math.min(request.getConcurrency() != null ? request.getConcurrency() : defaultConcurrency, maxConcurrency);
+        evictFinished();
+        String id = UUID.randomUUID().toString();
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter("dlt-replay", id, pacing(rate), meterRegistry);
+        ReplayJob job = new ReplayJob(id, request, request.getTo() != null ? request.getTo() : Instant.now(), limiter);
+        jobs.put(job.id, job);
+
+        Sinks.Empty<Void> nothingToRead = Sinks.empty();
+
+        ReceiverOptions<String, byte[]> options = receiverOptions
+                .consumerProperty(ConsumerConfig.GROUP_ID_CONFIG, kafkaConfig.getConsumer().getGroupId() + "-dlt-replay-" + job.id)
+                .consumerProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+                // Nothing is acknowledged, so deferred commits would eventually pause the partitions
+                .maxDeferredCommits(0)
+                .addAssignListener(partitions -> {
+                    job.assign(partitions);
+                    if (job.allPartitionsDone()) {
+                        nothingToRead.tryEmitEmpty();
+                    }
+                })
+                .subscription(List.of(kafkaConfig.getConsumer().getDeadLetterTopic()));
+
+        job.subscription = KafkaReceiver.create(options)
+                .receive()
+                .timeout(Duration.ofMillis(idleTimeout))
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.warn("DLT replay {} saw no records for {}ms, stopping", job.id, idleTimeout);
+                    return Mono.empty();
+                })
+                .takeUntilOther(nothingToRead.asMono())
+                .takeUntil(job::markRead)
+                .filter(job::matches)
+                .take(request.getLimit() != null ? request.getLimit() : Long.MAX_VALUE)
+                .flatMap(record -> limiter.acquire().then(replay(job, record)), concurrency)
+                .subscribe(
+                        null,
+                        error -> job.finish(DltReplayProgress.State.FAILED, error.getMessage()),
+                        () -> job.finish(DltReplayProgress.State.COMPLETED, null)
+                );
+
+        log.info("Started DLT replay {} at {}/s with concurrency {}: {}", job.id, rate, concurrency, request);
+        return job.progress();
+    }
+
+    public Optional<DltReplayProgress> progress(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ReplayJob::progress);
+    }
+
+    public Optional<DltReplayProgress> cancel(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(job -> {
+            job.subscription.dispose();
+            job.finish(DltReplayProgress.State.CANCELLED, null);
+            return job.progress();
+        });
+    }
+
+    private void evictFinished() {
+        Instant cutoff = Instant.now().minusMillis(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private Mono<Void> replay(ReplayJob job, ReceiverRecord<String, byte[]> record) {
+        String targetTopic = header(record, RetryTopicService.ORIGINAL_TOPIC_HEADER);
+        if (targetTopic == null) {
+            targetTopic = kafkaConfig.getConsumer().getTopic();
+        }
+
+        ProducerRecord<String, byte[]> replayed = new ProducerRecord<>(targetTopic, null, null, record.key(), record.value());
+        for (Header header : record.headers()) {
+            if (!DLT_HEADERS.contains(header.key())) {
+                replayed.headers().add(header);
+            }
+        }
+        replayed.headers().add(REPLAYED_HEADER, job.id.getBytes(StandardCharsets.UTF_8));
+
+        return producerPipeline.send(replayed)
+                .doOnNext(result -> job.replayed.incrementAndGet())
+                .onErrorResume(error -> {
+                    job.failed.incrementAndGet();
+                    log.error("DLT replay {} failed to re-publish offset {} of partition {}",
+                            job.id, record.offset(), record.partition(), error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private RateLimitConfig.Channel pacing(double rate) {
+        RateLimitConfig.Channel settings = new RateLimitConfig.Channel();
+        settings.setRate(rate);
+        settings.setMinRate(rate);
+        settings.setBurst(Math.max(1, rate));
+        settings.setIncreaseStep(0);
+        settings.setMaxWait(Long.MAX_VALUE);
+        return settings;
+    }
+
+    private static String header(ReceiverRecord<String, byte[]> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static class ReplayJob {
+
+        private final String id;
+        private final DltReplayRequest request;
+        private final Instant cutoff;
+        private final Instant startedAt = Instant.now();
+        private final Map<TopicPartition, Long> endOffsets = new ConcurrentHashMap<>();
+        private final Map<TopicPartition, Boolean> done = new ConcurrentHashMap<>();
+
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong matched = new AtomicLong();
+        private final AtomicLong replayed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private volatile DltReplayProgress.State state = DltReplayProgress.State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private final AdaptiveRateLimiter limiter;
+        private volatile Disposable subscription;
+
+        private ReplayJob(String id, DltReplayRequest request, Instant cutoff, AdaptiveRateLimiter limiter) {
+            this.id = id;
+            this.request = request;
+            this.cutoff = cutoff;
+            this.limiter = limiter;
+        }
+
+        // Runs on the consumer thread while partitions are assigned, so seeking here is safe
+        private void assign(Collection<ReceiverPartition> partitions) {
+            for (ReceiverPartition partition : partitions) {
+                partition.seekToEnd();
+                long end = partition.position();
+                if (request.getFrom() != null) {
+                    partition.seekToTimestamp(request.getFrom().toEpochMilli());
+                } else {
+                    partition.seekToBeginning();
+                }
+                endOffsets.put(partition.topicPartition(), end);
+                done.put(partition.topicPartition(), partition.position() >= end);
+            }
+        }
+
+        private boolean allPartitionsDone() {
+            return !done.isEmpty() && !done.containsValue(false);
+        }
+
+        /**
+         * @return {@code true} once this record was the last one to read on every partition
+         */
+        private boolean markRead(ReceiverRecord<String, byte[]> record) {
+            scanned.incrementAndGet();
+            TopicPartition partition = record.receiverOffset().topicPartition();
+            Long end = endOffsets.get(partition);
+            if (end != null && record.offset() >= end - 1) {
+                done.put(partition, true);
+            }
+            return allPartitionsDone();
+        }
+
+        private boolean matches(ReceiverRecord<String, byte[]> record) {
+            if (record.timestamp() > cutoff.toEpochMilli()) {
+                return false;
+            }
+            if (request.getErrorContains() != null) {
+                String error = header(record, RetryTopicService.ERROR_HEADER);
+                if (error == null || !error.contains(request.getErrorContains())) {
+                    return false;
+                }
+            }
+            matched.incrementAndGet();
+            return true;
+        }
+
+        private synchronized void finish(DltReplayProgress.State finalState, String failure) {
+            if (state != DltReplayProgress.State.RUNNING) {
+                return;
+            }
+            state = finalState;
+            error = failure;
+            finishedAt = Instant.now();
+            limiter.close();
+            log.info("DLT replay {} {}: scanned={}, matched={}, replayed={}, failed={}",
+                    id, finalState, scanned.get(), matched.get(), replayed.get(), failed.get());
+        }
+
+        private DltReplayProgress progress() {
+            return DltReplayProgress.builder()
+                    .id(id)
+                    .state(state)
+                    .scanned(scanned.get())
+                    .matched(matched.get())
+                    .replayed(replayed.get())
+                    .failed(failed.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
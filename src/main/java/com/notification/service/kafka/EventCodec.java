@@ -0,0 +1,90 @@
+package com.notification.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.model.dto.JobCreateEvent;
+import com.notification.model.dto.NotificationEvent;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes record values for the notification topics in either of the two wire formats, picked by the
+ * record's {@code content-type} header. Records without the header are JSON, so existing producers keep working.
+ * The binary format is defined in {@code src/main/proto/notification_events.proto}.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventCodec {
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+
+    private final ObjectMapper objectMapper;
+
+    public NotificationEvent decodeNotification(Headers headers, byte[] value) throws IOException {
+        return switch (contentTypeOf(headers)) {
+            case JSON -> objectMapper.readValue(value, NotificationEvent.class);
+            case PROTOBUF -> ProtobufEventCodec.decodeNotification(value, objectMapper);
+        };
+    }
+
+    public byte[] encode(NotificationEvent event, ContentType contentType) throws IOException {
+        return switch (contentType) {
+            case JSON -> objectMapper.writeValueAsBytes(event);
+            case PROTOBUF -> ProtobufEventCodec.encode(event, objectMapper);
+        };
+    }
+
+    public JobCreateEvent decodeJobCreated(Headers headers, byte[] value) throws IOException {
+        return switch (contentTypeOf(headers)) {
+            case JSON -> objectMapper.readValue(value, JobCreateEvent.class);
+            case PROTOBUF -> ProtobufEventCodec.decodeJobCreated(value);
+        };
+    }
+
+    public byte[] encode(JobCreateEvent event, ContentType contentType) throws IOException {
+        return switch (contentType) {
+            case JSON -> objectMapper.writeValueAsBytes(event);
+            case PROTOBUF -> ProtobufEventCodec.encode(event);
+        };
+    }
+
+    public static ContentType contentTypeOf(Headers headers) {
+        Header header = headers.lastHeader(CONTENT_TYPE_HEADER);
+        return header != null
+                ? ContentType.fromValue(new String(header.value(), StandardCharsets.US_ASCII))
+                : ContentType.JSON;
+    }
+
+    public static void setContentType(Headers headers, ContentType contentType) {
+        headers.remove(CONTENT_TYPE_HEADER);
+        headers.add(CONTENT_TYPE_HEADER, contentType.getValue().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public enum ContentType {
+        JSON("application/json"),
+        PROTOBUF("application/x-protobuf");
+
+        private final String value;
+
+        ContentType(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static ContentType fromValue(String value) {
+            for (ContentType contentType : values()) {
+                if (contentType.value.equalsIgnoreCase(value)) {
+                    return contentType;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported content type: " + value);
+        }
+    }
+}
@@ -1,40 +1,42 @@
 package com.notification.service.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.config.KafkaConfig;
 import com.notification.model.dto.JobCreateEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.kafka.sender.KafkaSender;
-import reactor.kafka.sender.SenderRecord;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class JobEventProducer {
 
-    private final KafkaSender<String, String> kafkaSender;
-    private final ObjectMapper objectMapper;
+    private final KafkaProducerPipeline producerPipeline;
+    private final KafkaConfig kafkaConfig;
+    private final EventCodec eventCodec;
 
     @Value("${kafka.topics.job-create}")
     private String topic;
 
     public Mono<Void> sendJobCreatedEvent(JobCreateEvent event) {
-        return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
-                .flatMap(jsonPayload -> {
-                    SenderRecord<String, String, Integer> record = SenderRecord.create(
+        EventCodec.ContentType contentType = kafkaConfig.getProducer().getContentType();
+
+        return Mono.fromCallable(() -> eventCodec.encode(event, contentType))
+                .flatMap(payload -> {
+                    ProducerRecord<String, byte[]> record = new ProducerRecord<>(
                             topic,
                             null,
                             System.currentTimeMillis(),
                             event.getRequesterWhatsapp(),
-                            jsonPayload,
-                            null
+                            payload
                     );
-                    return kafkaSender.send(Mono.just(record)).next();
+                    EventCodec.setContentType(record.headers(), contentType);
+                    return producerPipeline.send(record);
                 })
                 .doOnSuccess(r -> log.info("Produced JobCreateEvent for: {}", event.getJobTitle()))
                 .then();
     }
-}
\ No newline at end of file
+}
@@ -1,52 +1,119 @@
 package com.notification.service.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.config.KafkaConfig;
+import com.notification.config.PriorityConfig;
+import com.notification.config.RetryConfig;
 import com.notification.model.dto.NotificationEvent;
+import com.notification.service.execution.PriorityScheduler;
+import com.notification.service.idempotency.IdempotencyService;
 import com.notification.service.notification.NotificationRouterService;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.kafka.receiver.KafkaReceiver;
 import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaConsumerService {
 
-    private final KafkaReceiver<String, String> kafkaReceiver;
+    private static final int LANE_PREFETCH = 32;
+    private static final Duration PARK_MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration PARK_MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final KafkaReceiver<String, byte[]> kafkaReceiver;
+    private final KafkaConfig kafkaConfig;
     private final NotificationRouterService notificationRouterService;
+    private final IdempotencyService idempotencyService;
     private final KafkaDeadLetterService deadLetterService;
-    private final ObjectMapper objectMapper;
+    private final RetryConfig retryConfig;
+    private final RetryTopicService retryTopicService;
+    private final EventCodec eventCodec;
+    private final PriorityConfig priorityConfig;
+    private final PriorityScheduler priorityScheduler;
 
     @PostConstruct
     public void startConsuming() {
-        kafkaReceiver.receive()
-                .flatMap(this::processRecord)
-                .subscribe(
+        Flux<ReceiverRecord<String, byte[]>> records = kafkaReceiver.receive();
+
+        Flux<Void> processed = kafkaConfig.getConsumer().getProcessingMode() == KafkaConfig.ProcessingMode.PARTITIONED
+                ? processPartitioned(records)
+                : priorityScheduler.isEnabled()
+                        // Keep reading past queued bulk records so that higher lanes behind them can overtake
+                        ? records.flatMap(this::processRecord, priorityConfig.getMaxPending())
+                        : records.flatMap(this::processRecord);
+
+        processed.subscribe(
                         result -> log.info("Successfully processed notification"),
                         error -> log.error("Error in Kafka consumer stream", error)
                 );
     }
 
-    private Mono<Void> processRecord(ReceiverRecord<String, String> record) {
+    /**
+     * Hashes records into a fixed set of lanes so that at most {@code max-concurrency} records are in flight
+     * overall and at most {@code per-partition-concurrency} per partition. Records with the same key always
+     * land in the same lane and are processed one after another; lanes run in parallel.
+     */
+    private Flux<Void> processPartitioned(Flux<ReceiverRecord<String, byte[]>> records) {
+        KafkaConfig.Consumer consumer = kafkaConfig.getConsumer();
+        int lanes = Math.max(1, consumer.getMaxConcurrency());
+        int perPartition = Math.max(1, Math.min(consumer.getPerPartitionConcurrency(), lanes));
+
+        log.info("Starting partitioned Kafka processing with {} lanes, {} per partition", lanes, perPartition);
+
+        return records
+                .groupBy(record -> laneFor(record, lanes, perPartition))
+                .flatMap(lane -> lane
+                        .publishOn(Schedulers.parallel(), LANE_PREFETCH)
+                        .concatMap(this::processRecord), lanes);
+    }
+
+    private int laneFor(ReceiverRecord<String, byte[]> record, int lanes, int perPartition) {
+        int keySlot = record.key() != null ? Math.floorMod(record.key().hashCode(), perPartition) : 0;
+        int partitionSlot = Math.floorMod(Objects.hash(record.topic(), record.partition()), lanes);
+        return (partitionSlot + keySlot) % lanes;
+    }
+
+    private Mono<Void> processRecord(ReceiverRecord<String, byte[]> record) {
         return Mono.fromCallable(() -> {
                     log.info("Received message: key={}, partition={}, offset={}",
                             record.key(), record.partition(), record.offset());
-                    return objectMapper.readValue(record.value(), NotificationEvent.class);
+                    return eventCodec.decodeNotification(record.headers(), record.value());
                 })
-                .flatMap(notificationRouterService::routeNotification)
+                .flatMap(event -> priorityScheduler.submit(priorityConfig.priorityOf(record.topic(), event),
+                        () -> idempotencyService.deduplicate(event, record.value(),
+                                () -> notificationRouterService.routeNotification(event))))
                 .doOnSuccess(v -> record.receiverOffset().acknowledge())
                 .doOnError(error -> log.error("Error processing record", error))
                 .onErrorResume(error -> handleError(record, error));
     }
 
-    private Mono<Void> handleError(ReceiverRecord<String, String> record, Throwable error) {
-        log.error("Failed to process message, sending to DLT: {}", error.getMessage());
-        return deadLetterService.sendToDeadLetterTopic(record.value(), error.getMessage())
-                .doFinally(signal -> record.receiverOffset().acknowledge())
-                .then();
+    /**
+     * Parks the failed record on a retry tier or the DLT and only then acknowledges it. While neither publish
+     * succeeds the record stays unacknowledged, holding back its partition's commits, so it is redelivered rather
+     * than lost if this node goes away.
+     */
+    private Mono<Void> handleError(ReceiverRecord<String, byte[]> record, Throwable error) {
+        Mono<Void> park = retryConfig.isTopicMode()
+                ? Mono.defer(() -> retryTopicService.retryOrDeadLetter(record, error))
+                : Mono.defer(() -> {
+                    log.error("Failed to process message, sending to DLT: {}", error.getMessage());
+                    return deadLetterService.sendToDeadLetterTopic(record, error.getMessage());
+                });
+
+        return park
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, PARK_MIN_BACKOFF).maxBackoff(PARK_MAX_BACKOFF)
+                        .doBeforeRetry(signal -> log.error("Could not park failed record at offset {} of partition {}, retrying: {}",
+                                record.offset(), record.partition(), signal.failure().getMessage())))
+                .doOnSuccess(v -> record.receiverOffset().acknowledge());
     }
 }
@@ -1,38 +1,76 @@
 package com.notification.service.kafka;
 
 import com.notification.config.KafkaConfig;
+import com.notification.model.dto.NotificationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.kafka.sender.KafkaSender;
-import reactor.kafka.sender.SenderRecord;
+
+import java.nio.charset.StandardCharsets;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaDeadLetterService {
 
-    private final KafkaSender<String, String> kafkaSender;
+    private final KafkaProducerPipeline producerPipeline;
     private final KafkaConfig kafkaConfig;
+    private final EventCodec eventCodec;
+
+    public Mono<Void> sendToDeadLetterTopic(ConsumerRecord<String, byte[]> failed, String errorMessage) {
+        return sendToDeadLetterTopic(failed, errorMessage, 0);
+    }
 
-    public Mono<Void> sendToDeadLetterTopic(String message, String errorMessage) {
-        String dlTopic = kafkaConfig.getConsumer().getDeadLetterTopic();
-        
-        ProducerRecord<String, String> record = new ProducerRecord<>(
-                dlTopic,
+    /**
+     * Forwards the failed record's key, value and headers unchanged, adding the failure details as headers.
+     */
+    public Mono<Void> sendToDeadLetterTopic(ConsumerRecord<String, byte[]> failed, String errorMessage, int retryAttempts) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                kafkaConfig.getConsumer().getDeadLetterTopic(),
                 null,
                 System.currentTimeMillis(),
-                null,
-                message
+                failed.key(),
+                failed.value(),
+                failed.headers()
         );
-        
-        record.headers().add("error", errorMessage.getBytes());
-        record.headers().add("original-topic", kafkaConfig.getConsumer().getTopic().getBytes());
+        return send(record, errorMessage, retryAttempts);
+    }
+
+    /**
+     * Dead-letters an event whose record was already acknowledged, e.g. one that failed in an email digest after
+     * being buffered. The event is encoded afresh in {@code kafka.producer.content-type}, keyed like a produced
+     * notification.
+     */
+    public Mono<Void> sendToDeadLetterTopic(NotificationEvent event, String errorMessage) {
+        return Mono.fromCallable(() -> {
+                    EventCodec.ContentType contentType = kafkaConfig.getProducer().getContentType();
+                    ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                            kafkaConfig.getConsumer().getDeadLetterTopic(),
+                            null,
+                            System.currentTimeMillis(),
+                            event.getUsername(),
+                            eventCodec.encode(event, contentType)
+                    );
+                    EventCodec.setContentType(record.headers(), contentType);
+                    return record;
+                })
+                .flatMap(record -> send(record, errorMessage, 0));
+    }
+
+    private Mono<Void> send(ProducerRecord<String, byte[]> record, String errorMessage, int retryAttempts) {
+        record.headers().remove(RetryTopicService.ERROR_HEADER);
+        record.headers().remove(RetryTopicService.ORIGINAL_TOPIC_HEADER);
+        record.headers().remove(RetryTopicService.ATTEMPT_HEADER);
+        record.headers().remove(RetryTopicService.DUE_AT_HEADER);
+        record.headers().add(RetryTopicService.ERROR_HEADER, String.valueOf(errorMessage).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(RetryTopicService.ORIGINAL_TOPIC_HEADER, kafkaConfig.getConsumer().getTopic().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(RetryTopicService.ATTEMPT_HEADER, String.valueOf(retryAttempts).getBytes(StandardCharsets.UTF_8));
 
-        return kafkaSender.send(Mono.just(SenderRecord.create(record, null)))
-                .doOnNext(result -> log.info("Sent message to DLT: {}", dlTopic))
+        return producerPipeline.send(record)
+                .doOnNext(result -> log.info("Sent message to DLT: {}", record.topic()))
                 .doOnError(error -> log.error("Failed to send to DLT", error))
                 .then();
     }
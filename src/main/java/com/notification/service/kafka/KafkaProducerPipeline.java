@@ -0,0 +1,272 @@
+package com.notification.service.kafka;
+
+import com.notification.config.KafkaConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single path for every record this service produces.
+ * <p>
+ * Callers push records into one bounded sink that feeds a single long-lived {@link KafkaSender#send} stream, so
+ * records from every service share the producer's batches instead of each send being its own one-record stream.
+ * With {@code linger} and {@code batch-size} set, a burst of small records goes out as a few compressed batches.
+ * Each caller still gets its own record's outcome back.
+ * <p>
+ * When {@code buffer-capacity} records are already queued, a send waits for room, backing off on the Reactor timer,
+ * for up to {@code send-timeout}, as a send on the sender's own stream would. A burst of ingested records therefore
+ * slows down retry and dead letter publishes instead of failing them.
+ * <p>
+ * If the sender stream terminates (a fatal producer error such as an authorization failure or a fenced
+ * producer), the pipeline stops accepting records and fails every record still waiting for an acknowledgement, so
+ * no caller waits forever on a dead stream.
+ * <p>
+ * Per-topic metrics: {@code notification.kafka.produce.records} (tag {@code result}),
+ * {@code notification.kafka.produce.bytes} and {@code notification.kafka.produce.latency}, measured from
+ * enqueue to broker acknowledgement.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaProducerPipeline {
+
+    private static final Duration FULL_BUFFER_MIN_BACKOFF = Duration.ofMillis(1);
+    private static final Duration FULL_BUFFER_MAX_BACKOFF = Duration.ofMillis(100);
+
+    private final KafkaSender<String, byte[]> kafkaSender;
+    private final KafkaConfig kafkaConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TopicMeters> topicMeters = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    // Every record handed to the sink and not yet completed; whoever removes a record completes it
+    private final Set<PendingSend> outstanding = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch drained = new CountDownLatch(1);
+
+    private Sinks.Many<SenderRecord<String, byte[], PendingSend>> outbound;
+    private Disposable subscription;
+    private Counter waitingCounter;
+    private volatile boolean accepting;
+
+    @PostConstruct
+    public void start() {
+        KafkaConfig.Producer producer = kafkaConfig.getProducer();
+
+        outbound = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<SenderRecord<String, byte[], PendingSend>>get(producer.getBufferCapacity()).get());
+
+        Gauge.builder("notification.kafka.produce.pending", pending, AtomicInteger::get)
+                .description("Records handed to the producer pipeline and not yet acknowledged")
+                .register(meterRegistry);
+        waitingCounter = Counter.builder("notification.kafka.produce.buffer.full")
+                .description("Attempts to queue a record that found the pipeline buffer full and waited")
+                .register(meterRegistry);
+
+        subscription = kafkaSender.send(outbound.asFlux())
+                .doFinally(signal -> drained.countDown())
+                .subscribe(
+                        this::complete,
+                        error -> {
+                            log.error("Kafka producer pipeline terminated, failing {} pending records", pending.get(), error);
+                            terminate(error);
+                        },
+                        () -> terminate(new IllegalStateException("Kafka producer pipeline is shut down"))
+                );
+
+        accepting = true;
+        log.info("Kafka producer pipeline started: linger={}ms, batchSize={}, compression={}, maxInFlight={}",
+                producer.getLinger(), producer.getBatchSize(), producer.getCompressionType(), producer.getMaxInFlight());
+    }
+
+    /**
+     * Queues a record for sending and completes with its metadata once the broker acknowledges it.
+     */
+    public Mono<RecordMetadata> send(ProducerRecord<String, byte[]> record) {
+        return Mono.defer(() -> {
+            if (!accepting) {
+                return Mono.error(new IllegalStateException("Kafka producer pipeline is shut down"));
+            }
+
+            PendingSend pendingSend = new PendingSend(record.topic(), record.value() != null ? record.value().length : 0);
+            SenderRecord<String, byte[], PendingSend> senderRecord = SenderRecord.create(record, pendingSend);
+
+            long timeout = kafkaConfig.getProducer().getSendTimeout();
+            return enqueue(senderRecord)
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, FULL_BUFFER_MIN_BACKOFF)
+                            .maxBackoff(FULL_BUFFER_MAX_BACKOFF)
+                            .filter(BufferFullException.class::isInstance))
+                    .then(pendingSend.acknowledged.asMono())
+                    .timeout(Duration.ofMillis(timeout), Mono.error(() -> new TimeoutException(
+                            "No acknowledgement for record to " + record.topic() + " within " + timeout + "ms")));
+        });
+    }
+
+    /**
+     * Hands the record to the sender stream, or fails with {@link BufferFullException} leaving nothing behind so the
+     * caller can try again.
+     */
+    private Mono<Void> enqueue(SenderRecord<String, byte[], PendingSend> senderRecord) {
+        return Mono.defer(() -> {
+            if (!accepting) {
+                return Mono.error(new IllegalStateException("Kafka producer pipeline is shut down"));
+            }
+
+            PendingSend pendingSend = senderRecord.correlationMetadata();
+            outstanding.add(pendingSend);
+            pending.incrementAndGet();
+
+            Sinks.EmitResult result;
+            while ((result = outbound.tryEmitNext(senderRecord)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                Thread.onSpinWait();
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                if (outstanding.remove(pendingSend)) {
+                    pending.decrementAndGet();
+                }
+                waitingCounter.increment();
+                return Mono.error(new BufferFullException());
+            }
+            if (result.isFailure()) {
+                fail(pendingSend, new IllegalStateException("Kafka producer pipeline is shut down (" + result + ")"));
+            } else if (!accepting) {
+                // The stream terminated while this record was being queued, after the pending records were failed
+                fail(pendingSend, new IllegalStateException("Kafka producer pipeline is shut down"));
+            }
+            return Mono.empty();
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (outbound == null) {
+            return;
+        }
+
+        accepting = false;
+        while (outbound.tryEmitComplete() == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+
+        try {
+            long timeout = kafkaConfig.getProducer().getShutdownTimeout();
+            if (!drained.await(timeout, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out flushing the Kafka producer pipeline, {} records unacknowledged", pending.get());
+                subscription.dispose();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscription.dispose();
+        }
+        // A disposed stream signals nothing, so anything still unacknowledged is failed here
+        terminate(new IllegalStateException("Kafka producer pipeline is shut down"));
+    }
+
+    private void complete(SenderResult<PendingSend> result) {
+        PendingSend pendingSend = result.correlationMetadata();
+        if (!outstanding.remove(pendingSend)) {
+            return;
+        }
+        TopicMeters meters = meters(pendingSend.topic);
+        pending.decrementAndGet();
+        meters.latency.record(System.nanoTime() - pendingSend.enqueuedAt, TimeUnit.NANOSECONDS);
+
+        if (result.exception() != null) {
+            meters.failed.increment();
+            pendingSend.acknowledged.tryEmitError(result.exception());
+            return;
+        }
+
+        meters.sent.increment();
+        meters.bytes.record(pendingSend.size);
+        pendingSend.acknowledged.tryEmitValue(result.recordMetadata());
+    }
+
+    private void terminate(Throwable error) {
+        accepting = false;
+        outstanding.forEach(pendingSend -> fail(pendingSend, error));
+    }
+
+    private void fail(PendingSend pendingSend, Throwable error) {
+        if (outstanding.remove(pendingSend)) {
+            pending.decrementAndGet();
+            meters(pendingSend.topic).failed.increment();
+            pendingSend.acknowledged.tryEmitError(error);
+        }
+    }
+
+    private TopicMeters meters(String topic) {
+        return topicMeters.computeIfAbsent(topic, this::registerMeters);
+    }
+
+    private TopicMeters registerMeters(String topic) {
+        return new TopicMeters(
+                Counter.builder("notification.kafka.produce.records")
+                        .description("Records produced, by topic and outcome")
+                        .tag("topic", topic)
+                        .tag("result", "success")
+                        .register(meterRegistry),
+                Counter.builder("notification.kafka.produce.records")
+                        .description("Records produced, by topic and outcome")
+                        .tag("topic", topic)
+                        .tag("result", "failure")
+                        .register(meterRegistry),
+                DistributionSummary.builder("notification.kafka.produce.bytes")
+                        .description("Uncompressed value size of produced records")
+                        .baseUnit("bytes")
+                        .tag("topic", topic)
+                        .register(meterRegistry),
+                Timer.builder("notification.kafka.produce.latency")
+                        .description("Time from handing a record to the pipeline to its acknowledgement")
+                        .tag("topic", topic)
+                        .publishPercentiles(0.5, 0.99)
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry));
+    }
+
+    private record TopicMeters(Counter sent, Counter failed, DistributionSummary bytes, Timer latency) {
+    }
+
+    private static final class BufferFullException extends RuntimeException {
+        private BufferFullException() {
+            super("Kafka producer buffer is full", null, false, false);
+        }
+    }
+
+    private static final class PendingSend {
+        private final String topic;
+        private final int size;
+        private final long enqueuedAt = System.nanoTime();
+        private final Sinks.One<RecordMetadata> acknowledged = Sinks.one();
+
+        private PendingSend(String topic, int size) {
+            this.topic = topic;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.notification.service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.config.KafkaConfig;
+import com.notification.config.PriorityConfig;
+import com.notification.model.dto.BatchIngestResult;
+import com.notification.model.dto.NotificationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Publishes notifications uploaded as NDJSON, one {@link NotificationEvent} per line, to the notification topic.
+ * <p>
+ * The body is split into lines as it arrives and each line is parsed, validated and handed to the shared
+ * {@link KafkaProducerPipeline}. At most {@code kafka.producer.max-in-flight} lines are awaiting acknowledgement
+ * at once, so a slow broker slows down reading the request body instead of buffering it, and memory use does not
+ * grow with the upload. Every line gets one result: ACCEPTED with its partition and offset, REJECTED with the
+ * reasons, or FAILED if Kafka did not take it. Results arrive as Kafka acknowledges them, so they are not
+ * necessarily in line order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationIngestService {
+
+    private final KafkaProducerPipeline producerPipeline;
+    private final KafkaConfig kafkaConfig;
+    private final PriorityConfig priorityConfig;
+    private final EventCodec eventCodec;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.ingest.max-line-length:262144}")
+    private int maxLineLength;
+
+    private final Map<BatchIngestResult.Status, Counter> lineCounters = new EnumMap<>(BatchIngestResult.Status.class);
+
+    @PostConstruct
+    public void init() {
+        for (BatchIngestResult.Status status : BatchIngestResult.Status.values()) {
+            lineCounters.put(status, Counter.builder("notification.ingest.lines")
+                    .description("NDJSON lines received by the batch ingestion endpoint, by outcome")
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public Flux<BatchIngestResult> ingest(Flux<DataBuffer> body) {
+        StringDecoder lineDecoder = StringDecoder.textPlainOnly(List.of("\n"), true);
+        lineDecoder.setMaxInMemorySize(maxLineLength);
+
+        Flux<ParsedLine> lines = lineDecoder.decode(body, ResolvableType.forClass(String.class), null, Collections.emptyMap())
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> parse(line.getT1() + 1, line.getT2()));
+
+        // The pipeline's in-flight cap bounds how many lines are read ahead of their Kafka acknowledgement
+        return lines.flatMap(line -> line.rejected() != null
+                        ? Mono.just(line.rejected())
+                        : producerPipeline.send(line.record())
+                                .map(metadata -> accepted(line, metadata))
+                                .onErrorResume(error -> Mono.just(failed(line, error))),
+                        kafkaConfig.getProducer().getMaxInFlight())
+                .doOnNext(result -> lineCounters.get(result.getStatus()).increment())
+                .onErrorResume(error -> {
+                    log.error("Batch ingestion aborted", error);
+                    return Flux.just(BatchIngestResult.builder()
+                            .status(BatchIngestResult.Status.ABORTED)
+                            .errors(List.of(String.valueOf(error.getMessage())))
+                            .build());
+                });
+    }
+
+    private ParsedLine parse(long line, String json) {
+        NotificationEvent event;
+        try {
+            event = objectMapper.readValue(json, NotificationEvent.class);
+        } catch (JsonProcessingException e) {
+            return ParsedLine.rejected(line, null, List.of("Invalid JSON: " + e.getOriginalMessage()));
+        }
+        if (event == null) {
+            return ParsedLine.rejected(line, null, List.of("Event is required"));
+        }
+
+        Set<ConstraintViolation<NotificationEvent>> violations = validator.validate(event);
+        if (!violations.isEmpty()) {
+            List<String> errors = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .toList();
+            return ParsedLine.rejected(line, event.getEventId(), errors);
+        }
+
+        EventCodec.ContentType contentType = kafkaConfig.getProducer().getContentType();
+        byte[] payload;
+        try {
+            payload = eventCodec.encode(event, contentType);
+        } catch (Exception e) {
+            return ParsedLine.rejected(line, event.getEventId(), List.of("Could not encode event: " + e.getMessage()));
+        }
+
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topicFor(event), null, System.currentTimeMillis(),
+                event.getUsername(), payload);
+        EventCodec.setContentType(record.headers(), contentType);
+        return new ParsedLine(line, event.getEventId(), record, null);
+    }
+
+    // Events for a lane with its own topic go straight there, so the consumer does not have to overtake bulk traffic
+    private String topicFor(NotificationEvent event) {
+        if (priorityConfig.isEnabled()) {
+            PriorityConfig.Lane lane = priorityConfig.getLanes().get(priorityConfig.priorityOf(null, event));
+            if (lane != null && lane.getTopic() != null && !lane.getTopic().isBlank()) {
+                return lane.getTopic();
+            }
+        }
+        return kafkaConfig.getConsumer().getTopic();
+    }
+
+    private static BatchIngestResult accepted(ParsedLine line, RecordMetadata metadata) {
+        return BatchIngestResult.builder()
+                .line(line.line())
+                .status(BatchIngestResult.Status.ACCEPTED)
+                .eventId(line.eventId())
+                .topic(metadata.topic())
+                .partition(metadata.partition())
+                .offset(metadata.offset())
+                .build();
+    }
+
+    private static BatchIngestResult failed(ParsedLine line, Throwable error) {
+        return BatchIngestResult.builder()
+                .line(line.line())
+                .status(BatchIngestResult.Status.FAILED)
+                .eventId(line.eventId())
+                .errors(List.of(String.valueOf(error.getMessage())))
+                .build();
+    }
+
+    private record ParsedLine(long line, String eventId, ProducerRecord<String, byte[]> record, BatchIngestResult rejected) {
+
+        static ParsedLine rejected(long line, String eventId, List<String> errors) {
+            return new ParsedLine(line, eventId, null, BatchIngestResult.builder()
+                    .line(line)
+                    .status(BatchIngestResult.Status.REJECTED)
+                    .eventId(eventId)
+                    .errors(errors)
+                    .build());
+        }
+    }
+}
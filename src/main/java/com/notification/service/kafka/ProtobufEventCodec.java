@@ -0,0 +1,367 @@
+package com.notification.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.notification.model.dto.JobCreateEvent;
+import com.notification.model.dto.NotificationEvent;
+import com.notification.model.dto.NotificationPriority;
+import com.notification.model.dto.NotificationSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hand-written protobuf encoding of the messages in {@code notification_events.proto}, writing straight from and
+ * into the existing DTOs so no generated message objects sit in between. Sizes are computed up front so each
+ * record is encoded into one exactly sized array.
+ * <p>
+ * Decoders switch on the whole tag, field number and wire type together, as generated code does, so a known field
+ * arriving with an unexpected wire type is skipped like an unknown one instead of being misread.
+ * {@code ProtobufEventCodecTest} checks the field and enum numbers here against the {@code .proto} file.
+ */
+final class ProtobufEventCodec {
+
+    private static final int VARINT = WireFormat.WIRETYPE_VARINT;
+    private static final int FIXED64 = WireFormat.WIRETYPE_FIXED64;
+    private static final int LENGTH_DELIMITED = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    // A tag is the field number shifted past the three wire type bits
+    private static final int TYPE_BITS = 3;
+
+    private static final int EVENT_ID = 1;
+    private static final int USER_NAME = 2;
+    private static final int USERNAME = 3;
+    private static final int SUBJECT = 4;
+    private static final int SOURCE = 5;
+    private static final int DESTINATION = 6;
+    private static final int MESSAGE = 7;
+    private static final int METADATA = 8;
+    private static final int PRIORITY = 9;
+
+    private static final int WHATSAPP_NUMBER = 1;
+    private static final int EMAIL = 2;
+    private static final int USER_ID = 3;
+    private static final int TOPIC = 4;
+
+    private static final int ENTRY_KEY = 1;
+    private static final int ENTRY_VALUE = 2;
+
+    private static final int STRING_VALUE = 1;
+    private static final int LONG_VALUE = 2;
+    private static final int DOUBLE_VALUE = 3;
+    private static final int BOOL_VALUE = 4;
+    private static final int JSON_VALUE = 5;
+
+    private static final int JOB_TITLE = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int LOCATION = 3;
+    private static final int WAGE = 4;
+    private static final int CONTACT_NUMBER = 5;
+    private static final int REQUESTER_WHATSAPP = 6;
+
+    private ProtobufEventCodec() {
+    }
+
+    static byte[] encode(NotificationEvent event, ObjectMapper objectMapper) throws IOException {
+        Map<String, EncodedValue> metadata = encodeMetadata(event.getMetadata(), objectMapper);
+        NotificationEvent.Destination destination = event.getDestination();
+
+        int size = stringSize(EVENT_ID, event.getEventId())
+                + stringSize(USER_NAME, event.getUserName())
+                + stringSize(USERNAME, event.getUsername())
+                + stringSize(SUBJECT, event.getSubject())
+                + (event.getSource() != null ? CodedOutputStream.computeEnumSize(SOURCE, sourceNumber(event.getSource())) : 0)
+                + (destination != null ? nestedSize(DESTINATION, destinationSize(destination)) : 0)
+                + stringSize(MESSAGE, event.getMessage());
+        for (Map.Entry<String, EncodedValue> entry : metadata.entrySet()) {
+            size += nestedSize(METADATA, entrySize(entry.getKey(), entry.getValue()));
+        }
+        if (event.getPriority() != null) {
+            size += CodedOutputStream.computeEnumSize(PRIORITY, priorityNumber(event.getPriority()));
+        }
+
+        byte[] buffer = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(buffer);
+        writeString(out, EVENT_ID, event.getEventId());
+        writeString(out, USER_NAME, event.getUserName());
+        writeString(out, USERNAME, event.getUsername());
+        writeString(out, SUBJECT, event.getSubject());
+        if (event.getSource() != null) {
+            out.writeEnum(SOURCE, sourceNumber(event.getSource()));
+        }
+        if (destination != null) {
+            out.writeTag(DESTINATION, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(destinationSize(destination));
+            writeString(out, WHATSAPP_NUMBER, destination.getWhatsappNumber());
+            writeString(out, EMAIL, destination.getEmail());
+            writeString(out, USER_ID, destination.getUserId());
+            writeString(out, TOPIC, destination.getTopic());
+        }
+        writeString(out, MESSAGE, event.getMessage());
+        for (Map.Entry<String, EncodedValue> entry : metadata.entrySet()) {
+            out.writeTag(METADATA, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(entrySize(entry.getKey(), entry.getValue()));
+            out.writeString(ENTRY_KEY, entry.getKey());
+            out.writeTag(ENTRY_VALUE, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(entry.getValue().size());
+            entry.getValue().writeTo(out);
+        }
+        if (event.getPriority() != null) {
+            out.writeEnum(PRIORITY, priorityNumber(event.getPriority()));
+        }
+        out.checkNoSpaceLeft();
+        return buffer;
+    }
+
+    static NotificationEvent decodeNotification(byte[] bytes, ObjectMapper objectMapper) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        NotificationEvent event = new NotificationEvent();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case EVENT_ID << TYPE_BITS | LENGTH_DELIMITED -> event.setEventId(in.readString());
+                case USER_NAME << TYPE_BITS | LENGTH_DELIMITED -> event.setUserName(in.readString());
+                case USERNAME << TYPE_BITS | LENGTH_DELIMITED -> event.setUsername(in.readString());
+                case SUBJECT << TYPE_BITS | LENGTH_DELIMITED -> event.setSubject(in.readString());
+                case SOURCE << TYPE_BITS | VARINT -> event.setSource(source(in.readEnum()));
+                case DESTINATION << TYPE_BITS | LENGTH_DELIMITED -> {
+                    int limit = in.pushLimit(in.readRawVarint32());
+                    event.setDestination(readDestination(in));
+                    in.popLimit(limit);
+                }
+                case MESSAGE << TYPE_BITS | LENGTH_DELIMITED -> event.setMessage(in.readString());
+                case METADATA << TYPE_BITS | LENGTH_DELIMITED -> {
+                    if (event.getMetadata() == null) {
+                        event.setMetadata(new LinkedHashMap<>());
+                    }
+                    int limit = in.pushLimit(in.readRawVarint32());
+                    readEntry(in, event.getMetadata(), objectMapper);
+                    in.popLimit(limit);
+                }
+                case PRIORITY << TYPE_BITS | VARINT -> event.setPriority(priority(in.readEnum()));
+                default -> in.skipField(tag);
+            }
+        }
+        return event;
+    }
+
+    static byte[] encode(JobCreateEvent event) throws IOException {
+        int size = stringSize(JOB_TITLE, event.getJobTitle())
+                + stringSize(DESCRIPTION, event.getDescription())
+                + stringSize(LOCATION, event.getLocation())
+                + stringSize(WAGE, event.getWage())
+                + stringSize(CONTACT_NUMBER, event.getContactNumber())
+                + stringSize(REQUESTER_WHATSAPP, event.getRequesterWhatsapp());
+
+        byte[] buffer = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(buffer);
+        writeString(out, JOB_TITLE, event.getJobTitle());
+        writeString(out, DESCRIPTION, event.getDescription());
+        writeString(out, LOCATION, event.getLocation());
+        writeString(out, WAGE, event.getWage());
+        writeString(out, CONTACT_NUMBER, event.getContactNumber());
+        writeString(out, REQUESTER_WHATSAPP, event.getRequesterWhatsapp());
+        out.checkNoSpaceLeft();
+        return buffer;
+    }
+
+    static JobCreateEvent decodeJobCreated(byte[] bytes) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        JobCreateEvent event = new JobCreateEvent();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case JOB_TITLE << TYPE_BITS | LENGTH_DELIMITED -> event.setJobTitle(in.readString());
+                case DESCRIPTION << TYPE_BITS | LENGTH_DELIMITED -> event.setDescription(in.readString());
+                case LOCATION << TYPE_BITS | LENGTH_DELIMITED -> event.setLocation(in.readString());
+                case WAGE << TYPE_BITS | LENGTH_DELIMITED -> event.setWage(in.readString());
+                case CONTACT_NUMBER << TYPE_BITS | LENGTH_DELIMITED -> event.setContactNumber(in.readString());
+                case REQUESTER_WHATSAPP << TYPE_BITS | LENGTH_DELIMITED -> event.setRequesterWhatsapp(in.readString());
+                default -> in.skipField(tag);
+            }
+        }
+        return event;
+    }
+
+    private static NotificationEvent.Destination readDestination(CodedInputStream in) throws IOException {
+        NotificationEvent.Destination destination = new NotificationEvent.Destination();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case WHATSAPP_NUMBER << TYPE_BITS | LENGTH_DELIMITED -> destination.setWhatsappNumber(in.readString());
+                case EMAIL << TYPE_BITS | LENGTH_DELIMITED -> destination.setEmail(in.readString());
+                case USER_ID << TYPE_BITS | LENGTH_DELIMITED -> destination.setUserId(in.readString());
+                case TOPIC << TYPE_BITS | LENGTH_DELIMITED -> destination.setTopic(in.readString());
+                default -> in.skipField(tag);
+            }
+        }
+        return destination;
+    }
+
+    private static void readEntry(CodedInputStream in, Map<String, Object> metadata, ObjectMapper objectMapper) throws IOException {
+        String key = "";
+        Object value = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case ENTRY_KEY << TYPE_BITS | LENGTH_DELIMITED -> key = in.readString();
+                case ENTRY_VALUE << TYPE_BITS | LENGTH_DELIMITED -> {
+                    int limit = in.pushLimit(in.readRawVarint32());
+                    value = readValue(in, objectMapper);
+                    in.popLimit(limit);
+                }
+                default -> in.skipField(tag);
+            }
+        }
+        metadata.put(key, value);
+    }
+
+    private static Object readValue(CodedInputStream in, ObjectMapper objectMapper) throws IOException {
+        Object value = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case STRING_VALUE << TYPE_BITS | LENGTH_DELIMITED -> value = in.readString();
+                case LONG_VALUE << TYPE_BITS | VARINT -> {
+                    long number = in.readSInt64();
+                    // Match what Jackson produces for the same number in JSON
+                    value = number == (int) number ? (Object) (int) number : (Object) number;
+                }
+                case DOUBLE_VALUE << TYPE_BITS | FIXED64 -> value = in.readDouble();
+                case BOOL_VALUE << TYPE_BITS | VARINT -> value = in.readBool();
+                case JSON_VALUE << TYPE_BITS | LENGTH_DELIMITED -> value = objectMapper.readValue(in.readString(), Object.class);
+                default -> in.skipField(tag);
+            }
+        }
+        return value;
+    }
+
+    private static Map<String, EncodedValue> encodeMetadata(Map<String, Object> metadata, ObjectMapper objectMapper) throws IOException {
+        if (metadata == null || metadata.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, EncodedValue> encoded = new LinkedHashMap<>(metadata.size() * 2);
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            encoded.put(entry.getKey(), EncodedValue.of(entry.getValue(), objectMapper));
+        }
+        return encoded;
+    }
+
+    private static int destinationSize(NotificationEvent.Destination destination) {
+        return stringSize(WHATSAPP_NUMBER, destination.getWhatsappNumber())
+                + stringSize(EMAIL, destination.getEmail())
+                + stringSize(USER_ID, destination.getUserId())
+                + stringSize(TOPIC, destination.getTopic());
+    }
+
+    private static int entrySize(String key, EncodedValue value) {
+        return CodedOutputStream.computeStringSize(ENTRY_KEY, key) + nestedSize(ENTRY_VALUE, value.size());
+    }
+
+    private static int nestedSize(int field, int size) {
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static int stringSize(int field, String value) {
+        return value != null ? CodedOutputStream.computeStringSize(field, value) : 0;
+    }
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null) {
+            out.writeString(field, value);
+        }
+    }
+
+    // Enum numbers are spelled out to match notification_events.proto; they must never follow declaration order
+
+    private static int sourceNumber(NotificationSource source) {
+        return switch (source) {
+            case WHATSAPP -> 1;
+            case EMAIL -> 2;
+            case REALTIME -> 3;
+        };
+    }
+
+    private static NotificationSource source(int number) {
+        return switch (number) {
+            case 1 -> NotificationSource.WHATSAPP;
+            case 2 -> NotificationSource.EMAIL;
+            case 3 -> NotificationSource.REALTIME;
+            default -> throw new IllegalArgumentException("Invalid notification source: " + number);
+        };
+    }
+
+    private static int priorityNumber(NotificationPriority priority) {
+        return switch (priority) {
+            case HIGH -> 1;
+            case NORMAL -> 2;
+            case BULK -> 3;
+        };
+    }
+
+    // Unknown numbers come from producers on a newer schema; treat them like an unset priority
+    private static NotificationPriority priority(int number) {
+        return switch (number) {
+            case 1 -> NotificationPriority.HIGH;
+            case 2 -> NotificationPriority.NORMAL;
+            case 3 -> NotificationPriority.BULK;
+            default -> null;
+        };
+    }
+
+    /**
+     * One metadata value with its {@code Value} oneof case chosen, so its size is known before writing.
+     */
+    private record EncodedValue(int field, Object value) {
+
+        static EncodedValue of(Object value, ObjectMapper objectMapper) throws IOException {
+            if (value == null) {
+                return new EncodedValue(0, null);
+            }
+            if (value instanceof String string) {
+                return new EncodedValue(STRING_VALUE, string);
+            }
+            if (value instanceof Boolean bool) {
+                return new EncodedValue(BOOL_VALUE, bool);
+            }
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return new EncodedValue(LONG_VALUE, ((Number) value).longValue());
+            }
+            if (value instanceof Float number) {
+                // Jackson writes a float's shortest decimal form, which reads back as that double, not the widened one
+                return new EncodedValue(DOUBLE_VALUE, Double.parseDouble(number.toString()));
+            }
+            if (value instanceof Number number && !(number instanceof BigInteger || number instanceof BigDecimal)) {
+                return new EncodedValue(DOUBLE_VALUE, number.doubleValue());
+            }
+            return new EncodedValue(JSON_VALUE, objectMapper.writeValueAsString(value));
+        }
+
+        int size() {
+            return switch (field) {
+                case STRING_VALUE, JSON_VALUE -> CodedOutputStream.computeStringSize(field, (String) value);
+                case LONG_VALUE -> CodedOutputStream.computeSInt64Size(field, (Long) value);
+                case DOUBLE_VALUE -> CodedOutputStream.computeDoubleSize(field, (Double) value);
+                case BOOL_VALUE -> CodedOutputStream.computeBoolSize(field, (Boolean) value);
+                default -> 0;
+            };
+        }
+
+        void writeTo(CodedOutputStream out) throws IOException {
+            switch (field) {
+                case STRING_VALUE, JSON_VALUE -> out.writeString(field, (String) value);
+                case LONG_VALUE -> out.writeSInt64(field, (Long) value);
+                case DOUBLE_VALUE -> out.writeDouble(field, (Double) value);
+                case BOOL_VALUE -> out.writeBool(field, (Boolean) value);
+                default -> {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.notification.service.kafka;
+
+import com.notification.config.KafkaConfig;
+import com.notification.config.RetryConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Consumes the retry tier topics and re-publishes each record to the main topic once its
+ * {@code retry-due-at} has passed.
+ * <p>
+ * Every record on a tier topic carries the same delay, so records within a partition become due in offset
+ * order: each partition waits on its head record with a timer while other partitions keep flowing, and nothing
+ * blocks a thread. reactor-kafka pauses a partition whose records are not being requested, so waiting records
+ * do not stop the consumer from polling.
+ * <p>
+ * Each tier has its own receiver, so records waiting out a long tier never hold back the demand, and therefore
+ * the polling, of a shorter one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RetryScheduler {
+
+    private static final Duration REPUBLISH_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_REPUBLISH_BACKOFF = Duration.ofSeconds(30);
+
+    private final ReceiverOptions<String, byte[]> receiverOptions;
+    private final KafkaProducerPipeline producerPipeline;
+    private final KafkaConfig kafkaConfig;
+    private final RetryConfig retryConfig;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @PostConstruct
+    public void start() {
+        if (!retryConfig.isTopicMode() || retryConfig.getTiers().isEmpty()) {
+            return;
+        }
+
+        String groupId = retryConfig.getSchedulerGroupId() != null
+                ? retryConfig.getSchedulerGroupId()
+                : kafkaConfig.getConsumer().getGroupId() + "-retry";
+
+        for (RetryConfig.Tier tier : retryConfig.getTiers()) {
+            ReceiverOptions<String, byte[]> options = receiverOptions
+                    .consumerProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId)
+                    .subscription(List.of(tier.getTopic()));
+
+            subscriptions.add(KafkaReceiver.create(options)
+                    .receive()
+                    .groupBy(record -> record.receiverOffset().topicPartition())
+                    .flatMap(partition -> partition.concatMap(this::republishWhenDue), Integer.MAX_VALUE)
+                    .subscribe(
+                            null,
+                            error -> log.error("Retry scheduler stream for {} terminated", tier.getTopic(), error)
+                    ));
+        }
+
+        log.info("Retry scheduler consuming {} tiers as {}", retryConfig.getTiers().size(), groupId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    private Mono<Void> republishWhenDue(ReceiverRecord<String, byte[]> record) {
+        Header dueAt = record.headers().lastHeader(RetryTopicService.DUE_AT_HEADER);
+        long dueAtMillis = dueAt != null ? Long.parseLong(new String(dueAt.value(), StandardCharsets.UTF_8)) : 0;
+
+        ProducerRecord<String, byte[]> republished = new ProducerRecord<>(
+                kafkaConfig.getConsumer().getTopic(), null, null, record.key(), record.value(), record.headers());
+
+        // The wait is measured when the record reaches the head of its partition, and only the send is retried
+        return Mono.defer(() -> Mono.delay(Duration.ofMillis(Math.max(0, dueAtMillis - System.currentTimeMillis()))))
+                .then(producerPipeline.send(republished)
+                        .retryWhen(Retry.backoff(Long.MAX_VALUE, REPUBLISH_BACKOFF).maxBackoff(MAX_REPUBLISH_BACKOFF)
+                                .doBeforeRetry(signal -> log.warn("Failed to re-publish retry from {}, retrying: {}",
+                                        record.topic(), signal.failure().getMessage()))))
+                .doOnNext(result -> {
+                    record.receiverOffset().acknowledge();
+                    log.debug("Re-published retry attempt {} from {}", RetryTopicService.attemptOf(record.headers()), record.topic());
+                })
+                .then();
+    }
+}
@@ -0,0 +1,111 @@
+package com.notification.service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.notification.config.KafkaConfig;
+import com.notification.config.RetryConfig;
+import com.notification.model.dto.NotificationStatus;
+import com.notification.service.logging.NotificationLoggingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Parks failed records on tiered delay topics instead of retrying them while they hold a consumer slot.
+ * <p>
+ * A record that fails for the n-th time goes to the n-th configured tier with {@code retry-attempt} and
+ * {@code retry-due-at} headers; {@link RetryScheduler} re-publishes it to the main topic once it is due. Records
+ * that fail after the last tier, or fail in a way retrying cannot fix, go to the dead letter topic.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RetryTopicService {
+
+    public static final String ATTEMPT_HEADER = "retry-attempt";
+    public static final String DUE_AT_HEADER = "retry-due-at";
+    public static final String ERROR_HEADER = "error";
+    public static final String ORIGINAL_TOPIC_HEADER = "original-topic";
+
+    private static final List<String> RETRY_HEADERS = List.of(ATTEMPT_HEADER, DUE_AT_HEADER, ERROR_HEADER, ORIGINAL_TOPIC_HEADER);
+
+    private final KafkaProducerPipeline producerPipeline;
+    private final KafkaConfig kafkaConfig;
+    private final RetryConfig retryConfig;
+    private final KafkaDeadLetterService deadLetterService;
+    private final NotificationLoggingService loggingService;
+    private final EventCodec eventCodec;
+    private final MeterRegistry meterRegistry;
+
+    public Mono<Void> retryOrDeadLetter(ConsumerRecord<String, byte[]> record, Throwable error) {
+        int attempt = attemptOf(record.headers());
+        List<RetryConfig.Tier> tiers = retryConfig.getTiers();
+        String errorMessage = String.valueOf(error.getMessage());
+
+        if (!isRetryable(error) || attempt >= tiers.size()) {
+            log.error("Giving up on message after {} retries, sending to DLT: {}", attempt, errorMessage);
+            meterRegistry.counter("notification.retry.exhausted").increment();
+            return logAttempt(record, NotificationStatus.FAILED, errorMessage, attempt)
+                    .then(deadLetterService.sendToDeadLetterTopic(record, errorMessage, attempt));
+        }
+
+        RetryConfig.Tier tier = tiers.get(attempt);
+        long dueAt = System.currentTimeMillis() + tier.getDelay();
+        ProducerRecord<String, byte[]> retry = new ProducerRecord<>(tier.getTopic(), null, null, record.key(), record.value());
+
+        for (Header header : record.headers()) {
+            if (!RETRY_HEADERS.contains(header.key())) {
+                retry.headers().add(header);
+            }
+        }
+        retry.headers().add(ATTEMPT_HEADER, String.valueOf(attempt + 1).getBytes(StandardCharsets.UTF_8));
+        retry.headers().add(DUE_AT_HEADER, String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8));
+        retry.headers().add(ERROR_HEADER, errorMessage.getBytes(StandardCharsets.UTF_8));
+        retry.headers().add(ORIGINAL_TOPIC_HEADER, kafkaConfig.getConsumer().getTopic().getBytes(StandardCharsets.UTF_8));
+
+        return producerPipeline.send(retry)
+                .doOnNext(result -> {
+                    meterRegistry.counter("notification.retry.scheduled", "tier", tier.getTopic()).increment();
+                    log.warn("Scheduled retry {} of message on {} in {}ms: {}", attempt + 1, tier.getTopic(), tier.getDelay(), errorMessage);
+                })
+                .then(logAttempt(record, NotificationStatus.RETRY, errorMessage, attempt + 1))
+                .onErrorResume(sendError -> {
+                    log.error("Failed to schedule retry on {}, sending to DLT", tier.getTopic(), sendError);
+                    return deadLetterService.sendToDeadLetterTopic(record, errorMessage, attempt);
+                });
+    }
+
+    public static int attemptOf(Headers headers) {
+        Header header = headers.lastHeader(ATTEMPT_HEADER);
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Malformed payloads and missing destinations fail the same way on every attempt
+    private boolean isRetryable(Throwable error) {
+        return !(error instanceof IllegalArgumentException || error instanceof JsonProcessingException
+                || error instanceof InvalidProtocolBufferException);
+    }
+
+    private Mono<Void> logAttempt(ConsumerRecord<String, byte[]> record, NotificationStatus status, String errorMessage, int retryCount) {
+        return Mono.fromCallable(() -> eventCodec.decodeNotification(record.headers(), record.value()))
+                .flatMap(event -> loggingService.logNotification(event, status, errorMessage, retryCount))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+}
@@ -0,0 +1,156 @@
+package com.notification.service.logging;
+
+import com.notification.model.dto.NotificationHistoryEntry;
+import com.notification.model.dto.NotificationHistoryPage;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads {@code notification_logs} newest first using keyset pagination on {@code (created_at, id)}.
+ * <p>
+ * Each page is a {@code (created_at, id) < cursor} range scan on one of the composite indexes in
+ * {@code schema.sql}, so fetching page 10,000 costs the same as fetching page one, and a date range only touches
+ * the partitions it covers. Exports walk the same pages one after another rather than holding one long query open,
+ * so memory stays at one page however large the range is.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationHistoryService {
+
+    private static final String SELECT = "SELECT id, user_name, username, subject, source, destination, message, "
+            + "metadata, status, retry_count, error_message, created_at FROM notification_logs";
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${notification.history.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${notification.history.export-chunk-size:1000}")
+    private int exportChunkSize;
+
+    public record HistoryQuery(String username, String status, String source, LocalDateTime from, LocalDateTime to) {
+    }
+
+    public Mono<NotificationHistoryPage> page(HistoryQuery query, String cursor, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            return Mono.error(new IllegalArgumentException("limit must be between 1 and " + maxPageSize));
+        }
+        return Mono.defer(() -> fetch(query, decodeCursor(cursor), limit));
+    }
+
+    /**
+     * Every matching row, newest first, fetched {@code export-chunk-size} rows at a time.
+     */
+    public Flux<NotificationHistoryEntry> export(HistoryQuery query) {
+        return fetch(query, null, exportChunkSize)
+                .expand(page -> page.getNextCursor() != null
+                        ? fetch(query, decodeCursor(page.getNextCursor()), exportChunkSize)
+                        : Mono.empty())
+                // Prefetch of one page so the next query only runs once the client has taken the current one
+                .concatMapIterable(NotificationHistoryPage::getItems, 1);
+    }
+
+    private Mono<NotificationHistoryPage> fetch(HistoryQuery query, Cursor after, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT).append(" WHERE TRUE");
+        Map<String, Object> params = new LinkedHashMap<>();
+
+        if (query.username() != null) {
+            sql.append(" AND username = :username");
+            params.put("username", query.username());
+        }
+        if (query.status() != null) {
+            sql.append(" AND status = :status");
+            params.put("status", query.status());
+        }
+        if (query.source() != null) {
+            sql.append(" AND source = :source");
+            params.put("source", query.source());
+        }
+        if (query.from() != null) {
+            sql.append(" AND created_at >= :from");
+            params.put("from", query.from());
+        }
+        if (query.to() != null) {
+            sql.append(" AND created_at < :to");
+            params.put("to", query.to());
+        }
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (:cursorCreatedAt, :cursorId)");
+            params.put("cursorCreatedAt", after.createdAt());
+            params.put("cursorId", after.id());
+        }
+        // One extra row tells whether there is a next page without a COUNT
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+        params.put("limit", limit + 1);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+
+        return spec.map(NotificationHistoryService::toEntry)
+                .all()
+                .collectList()
+                .map(rows -> {
+                    if (rows.size() <= limit) {
+                        return new NotificationHistoryPage(rows, null);
+                    }
+                    List<NotificationHistoryEntry> items = rows.subList(0, limit);
+                    NotificationHistoryEntry last = items.get(limit - 1);
+                    return new NotificationHistoryPage(items, encodeCursor(new Cursor(last.getCreatedAt(), last.getId())));
+                });
+    }
+
+    private static NotificationHistoryEntry toEntry(Readable row) {
+        Json metadata = row.get("metadata", Json.class);
+        return NotificationHistoryEntry.builder()
+                .id(row.get("id", Long.class))
+                .userName(row.get("user_name", String.class))
+                .username(row.get("username", String.class))
+                .subject(row.get("subject", String.class))
+                .source(row.get("source", String.class))
+                .destination(row.get("destination", String.class))
+                .message(row.get("message", String.class))
+                .metadata(metadata != null ? metadata.asString() : null)
+                .status(row.get("status", String.class))
+                .retryCount(row.get("retry_count", Integer.class))
+                .errorMessage(row.get("error_message", String.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .build();
+    }
+
+    private static String encodeCursor(Cursor cursor) {
+        String raw = cursor.createdAt() + "|" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(LocalDateTime createdAt, long id) {
+    }
+}
@@ -0,0 +1,275 @@
+package com.notification.service.logging;
+
+import com.notification.model.entity.NotificationLog;
+import com.notification.repository.NotificationLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.postgresql.codec.Json;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer for {@code notification_logs}.
+ * <p>
+ * Rows are queued in a bounded in-memory buffer and flushed as a single multi-row INSERT once
+ * {@code batch-size} rows are pending or {@code flush-interval} has elapsed, whichever comes first.
+ * In strict mode callers still share the batched INSERT but only complete once their row is committed;
+ * otherwise they complete at once with the unsaved row. Either way {@code onPersisted} runs only after
+ * the row has actually been written.
+ * When the buffer is full, or after shutdown, rows fall back to a direct single-row save.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationLogBatchWriter {
+
+    private static final String INSERT_PREFIX = "INSERT INTO notification_logs "
+            + "(user_name, username, subject, source, destination, message, metadata, status, "
+            + "retry_count, error_message, created_at, updated_at) VALUES ";
+
+    private static final int COLUMN_COUNT = 12;
+
+    // PostgreSQL caps a single statement at 65535 bind parameters
+    private static final int MAX_BATCH_SIZE = 65535 / COLUMN_COUNT;
+
+    private final DatabaseClient databaseClient;
+    private final NotificationLogRepository repository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.logging.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.logging.write-behind.strict:false}")
+    private boolean strict;
+
+    @Value("${notification.logging.write-behind.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${notification.logging.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notification.logging.write-behind.flush-interval:200}")
+    private long flushInterval;
+
+    @Value("${notification.logging.write-behind.shutdown-timeout:10000}")
+    private long shutdownTimeout;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CountDownLatch drained = new CountDownLatch(1);
+
+    private Sinks.Many<PendingLog> buffer;
+    private Disposable subscription;
+    private volatile boolean accepting;
+
+    private DistributionSummary batchSizeSummary;
+    private Timer flushTimer;
+    private Counter overflowCounter;
+    private Counter flushFailureCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        batchSize = Math.min(batchSize, MAX_BATCH_SIZE);
+
+        batchSizeSummary = DistributionSummary.builder("notification.log.batch.size")
+                .description("Rows written per notification_logs flush")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("notification.log.flush.latency")
+                .description("Time taken to flush a batch of notification_logs rows")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        overflowCounter = Counter.builder("notification.log.buffer.overflow")
+                .description("Rows written directly because the write-behind buffer was full")
+                .register(meterRegistry);
+        flushFailureCounter = Counter.builder("notification.log.flush.failures")
+                .description("Batched flushes that failed and fell back to single-row saves")
+                .register(meterRegistry);
+        Gauge.builder("notification.log.buffer.pending", pending, AtomicInteger::get)
+                .description("Rows waiting in the write-behind buffer")
+                .register(meterRegistry);
+
+        buffer = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<PendingLog>get(bufferCapacity).get());
+
+        subscription = buffer.asFlux()
+                .bufferTimeout(batchSize, Duration.ofMillis(flushInterval), true)
+                .concatMap(this::flush, 1)
+                .doFinally(signal -> drained.countDown())
+                .subscribe(
+                        null,
+                        error -> log.error("Notification log write-behind pipeline terminated", error)
+                );
+
+        accepting = true;
+        log.info("Notification log write-behind enabled: batchSize={}, flushInterval={}ms, capacity={}, strict={}",
+                batchSize, flushInterval, bufferCapacity, strict);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<NotificationLog> write(NotificationLog notificationLog, Consumer<NotificationLog> onPersisted) {
+        if (!accepting) {
+            return repository.save(notificationLog).doOnSuccess(onPersisted);
+        }
+
+        Sinks.One<NotificationLog> flushed = strict ? Sinks.one() : null;
+        Sinks.EmitResult result = emit(new PendingLog(notificationLog, flushed, onPersisted));
+
+        if (result.isFailure()) {
+            overflowCounter.increment();
+            log.warn("Notification log buffer rejected row ({}), writing directly", result);
+            return repository.save(notificationLog).doOnSuccess(onPersisted);
+        }
+
+        pending.incrementAndGet();
+        return flushed != null ? flushed.asMono() : Mono.just(notificationLog);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled || buffer == null) {
+            return;
+        }
+
+        accepting = false;
+        while (buffer.tryEmitComplete() == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+
+        try {
+            if (!drained.await(shutdownTimeout, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out flushing notification logs on shutdown, {} rows not written", pending.get());
+                subscription.dispose();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscription.dispose();
+        }
+    }
+
+    private Sinks.EmitResult emit(PendingLog entry) {
+        Sinks.EmitResult result;
+        while ((result = buffer.tryEmitNext(entry)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        return result;
+    }
+
+    private Mono<Void> flush(List<PendingLog> batch) {
+        long start = System.nanoTime();
+
+        return insertBatch(batch)
+                .doOnSuccess(rows -> {
+                    flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    batchSizeSummary.record(batch.size());
+                    batch.forEach(entry -> entry.complete(null));
+                    log.debug("Flushed {} notification logs", batch.size());
+                })
+                .then()
+                .onErrorResume(error -> {
+                    flushFailureCounter.increment();
+                    log.error("Batched insert of {} notification logs failed, falling back to single-row saves",
+                            batch.size(), error);
+                    return saveIndividually(batch);
+                })
+                .doFinally(signal -> pending.addAndGet(-batch.size()));
+    }
+
+    private Mono<Long> insertBatch(List<PendingLog> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * COLUMN_COUNT * 5);
+        sql.append(INSERT_PREFIX);
+
+        for (int row = 0; row < batch.size(); row++) {
+            sql.append(row == 0 ? "(" : ", (");
+            for (int column = 1; column <= COLUMN_COUNT; column++) {
+                if (column > 1) {
+                    sql.append(", ");
+                }
+                sql.append('$').append(row * COLUMN_COUNT + column);
+            }
+            sql.append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int row = 0; row < batch.size(); row++) {
+            spec = bindRow(spec, row * COLUMN_COUNT, batch.get(row).log());
+        }
+
+        return spec.fetch().rowsUpdated();
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindRow(DatabaseClient.GenericExecuteSpec spec, int offset, NotificationLog row) {
+        spec = bind(spec, offset, row.getUserName(), String.class);
+        spec = bind(spec, offset + 1, row.getUsername(), String.class);
+        spec = bind(spec, offset + 2, row.getSubject(), String.class);
+        spec = bind(spec, offset + 3, row.getSource(), String.class);
+        spec = bind(spec, offset + 4, row.getDestination(), String.class);
+        spec = bind(spec, offset + 5, row.getMessage(), String.class);
+        spec = bind(spec, offset + 6, row.getMetadata(), Json.class);
+        spec = bind(spec, offset + 7, row.getStatus(), String.class);
+        spec = bind(spec, offset + 8, row.getRetryCount(), Integer.class);
+        spec = bind(spec, offset + 9, row.getErrorMessage(), String.class);
+        spec = bind(spec, offset + 10, row.getCreatedAt(), LocalDateTime.class);
+        return bind(spec, offset + 11, row.getUpdatedAt(), LocalDateTime.class);
+    }
+
+    private DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, int index, Object value, Class<?> type) {
+        return value != null ? spec.bind(index, value) : spec.bindNull(index, type);
+    }
+
+    private Mono<Void> saveIndividually(List<PendingLog> batch) {
+        return Flux.fromIterable(batch)
+                .concatMap(entry -> repository.save(entry.log())
+                        .doOnSuccess(entry::complete)
+                        .onErrorResume(error -> {
+                            log.error("Failed to log notification for {}", entry.log().getUsername(), error);
+                            entry.fail(error);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private record PendingLog(NotificationLog log, Sinks.One<NotificationLog> flushed,
+                              Consumer<NotificationLog> onPersisted) {
+
+        void complete(NotificationLog saved) {
+            NotificationLog persisted = saved != null ? saved : log;
+            onPersisted.accept(persisted);
+            if (flushed != null) {
+                flushed.tryEmitValue(persisted);
+            }
+        }
+
+        void fail(Throwable error) {
+            if (flushed != null) {
+                flushed.tryEmitError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.notification.service.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the range partitions of {@code notification_logs} in step with the clock.
+ * <p>
+ * On startup and every {@code maintenance-interval} it creates the partition for the current period plus
+ * {@code premake} more ahead of it, so inserts never land in the default partition, and it drops (or detaches,
+ * for archiving) partitions that ended more than {@code retention} days ago. Dropping a partition is a metadata
+ * operation, so retention costs the same whether the partition holds a thousand rows or a billion.
+ * <p>
+ * The first pass runs to completion during startup, before anything that writes logs is created (see the
+ * {@code @DependsOn} on {@link NotificationLoggingService}). If the default partition already caught rows for a
+ * period, e.g. after an outage longer than {@code premake}, they are moved into the new partition in the same
+ * transaction that creates it.
+ * <p>
+ * Does nothing if {@code notification_logs} is a plain table, i.e. a database created before partitioning.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationLogPartitionMaintainer {
+
+    private static final String TABLE = "notification_logs";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${notification.logging.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.logging.partitions.granularity:DAY}")
+    private Granularity granularity;
+
+    @Value("${notification.logging.partitions.premake:7}")
+    private int premake;
+
+    @Value("${notification.logging.partitions.retention:90}")
+    private int retentionDays;
+
+    @Value("${notification.logging.partitions.retention-mode:DROP}")
+    private RetentionMode retentionMode;
+
+    @Value("${notification.logging.partitions.maintenance-interval:3600000}")
+    private long maintenanceInterval;
+
+    @Value("${notification.logging.partitions.startup-timeout:60000}")
+    private long startupTimeout;
+
+    private Disposable subscription;
+
+    public enum Granularity {
+        DAY(DateTimeFormatter.ofPattern("yyyyMMdd"), ChronoUnit.DAYS),
+        MONTH(DateTimeFormatter.ofPattern("yyyyMM"), ChronoUnit.MONTHS);
+
+        private final DateTimeFormatter suffix;
+        private final ChronoUnit unit;
+
+        Granularity(DateTimeFormatter suffix, ChronoUnit unit) {
+            this.suffix = suffix;
+            this.unit = unit;
+        }
+
+        LocalDate periodStart(LocalDate date) {
+            return this == MONTH ? date.with(TemporalAdjusters.firstDayOfMonth()) : date;
+        }
+
+        LocalDate parse(String suffixText) {
+            return this == MONTH
+                    ? LocalDate.parse(suffixText + "01", DateTimeFormatter.ofPattern("yyyyMMdd"))
+                    : LocalDate.parse(suffixText, suffix);
+        }
+    }
+
+    public enum RetentionMode {
+        /** Expired partitions are dropped with their data. */
+        DROP,
+        /** Expired partitions are detached and left in place as standalone tables for archiving. */
+        DETACH
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        Boolean partitioned = maintain()
+                .onErrorResume(error -> {
+                    log.error("Initial notification_logs partition maintenance failed", error);
+                    return Mono.just(true);
+                })
+                .block(Duration.ofMillis(startupTimeout));
+        if (!Boolean.TRUE.equals(partitioned)) {
+            return;
+        }
+
+        subscription = Flux.interval(Duration.ofMillis(maintenanceInterval), Duration.ofMillis(maintenanceInterval))
+                .concatMap(tick -> maintain()
+                        .onErrorResume(error -> {
+                            log.error("notification_logs partition maintenance failed", error);
+                            return Mono.just(true);
+                        }))
+                .takeWhile(Boolean::booleanValue)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Runs one maintenance pass.
+     *
+     * @return {@code false} if the table is not partitioned and there is nothing to maintain
+     */
+    private Mono<Boolean> maintain() {
+        return isPartitioned().flatMap(partitioned -> {
+            if (!partitioned) {
+                log.info("{} is not a partitioned table, skipping partition maintenance", TABLE);
+                return Mono.just(false);
+            }
+            return existingPartitions()
+                    .flatMap(existing -> createAhead(existing).then(expire(existing)))
+                    .thenReturn(true);
+        });
+    }
+
+    private Mono<Boolean> isPartitioned() {
+        return databaseClient.sql("SELECT relkind::text AS kind FROM pg_class WHERE oid = to_regclass('" + TABLE + "')")
+                .map(row -> "p".equals(row.get("kind", String.class)))
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Set<String>> existingPartitions() {
+        return databaseClient.sql("SELECT c.relname AS name FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = '" + TABLE + "'::regclass")
+                .map(row -> row.get("name", String.class))
+                .all()
+                .collect(HashSet::new, Set::add);
+    }
+
+    private Mono<Void> createAhead(Set<String> existing) {
+        LocalDate current = granularity.periodStart(LocalDate.now());
+
+        return Flux.range(0, premake + 1)
+                .map(offset -> current.plus(offset, granularity.unit))
+                .filter(start -> !existing.contains(partitionName(start)))
+                .concatMap(start -> {
+                    String name = partitionName(start);
+                    LocalDate end = start.plus(1, granularity.unit);
+                    String create = "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE
+                            + " FOR VALUES FROM ('" + start + "') TO ('" + end + "')";
+
+                    Mono<Boolean> stranded = existing.contains(DEFAULT_PARTITION)
+                            ? hasDefaultRows(start, end)
+                            : Mono.just(false);
+
+                    return stranded
+                            .flatMap(move -> move
+                                    ? moveFromDefault(create, start, end)
+                                            .doOnSuccess(v -> log.warn("Moved rows for [{}, {}) from {} into new partition {}",
+                                                    start, end, DEFAULT_PARTITION, name))
+                                    : databaseClient.sql(create).then()
+                                            .doOnSuccess(v -> log.info("Created partition {} for [{}, {})", name, start, end)))
+                            .onErrorResume(error -> {
+                                log.error("Failed to create partition {}: {}", name, error.getMessage());
+                                return Mono.empty();
+                            });
+                })
+                .then();
+    }
+
+    private Mono<Boolean> hasDefaultRows(LocalDate start, LocalDate end) {
+        return databaseClient.sql("SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE " + inRange(start, end)
+                        + ") AS stranded")
+                .map(row -> Boolean.TRUE.equals(row.get("stranded", Boolean.class)))
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * A partition cannot be created over rows the default partition holds for its range, so the default is
+     * detached, the partition created, the rows re-inserted through the parent and the default re-attached, all in
+     * one transaction. Inserts wait on the detach lock meanwhile; none can land in the wrong place. If any step
+     * fails the whole move is rolled back and the connection goes back to the pool clean.
+     */
+    private Mono<Void> moveFromDefault(String create, LocalDate start, LocalDate end) {
+        String range = inRange(start, end);
+        return databaseClient.sql("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION).then()
+                .then(databaseClient.sql(create).then())
+                .then(databaseClient.sql("INSERT INTO " + TABLE + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range).then())
+                .then(databaseClient.sql("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range).then())
+                .then(databaseClient.sql("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT").then())
+                .as(transactionalOperator::transactional);
+    }
+
+    private static String inRange(LocalDate start, LocalDate end) {
+        return "created_at >= '" + start + "' AND created_at < '" + end + "'";
+    }
+
+    private Mono<Void> expire(Set<String> existing) {
+        if (retentionDays <= 0) {
+            return Mono.empty();
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+
+        return Flux.fromIterable(existing)
+                .filter(name -> {
+                    LocalDate start = periodStartOf(name);
+                    return start != null && !start.plus(1, granularity.unit).isAfter(cutoff);
+                })
+                .sort()
+                .concatMap(name -> {
+                    Mono<Void> detach = databaseClient.sql("ALTER TABLE " + TABLE + " DETACH PARTITION " + name).then();
+                    Mono<Void> retire = retentionMode == RetentionMode.DROP
+                            ? detach.then(databaseClient.sql("DROP TABLE IF EXISTS " + name).then())
+                            : detach;
+
+                    return retire
+                            .doOnSuccess(v -> log.info("{} expired partition {}", retentionMode == RetentionMode.DROP ? "Dropped" : "Detached", name))
+                            .onErrorResume(error -> {
+                                log.error("Failed to expire partition {}: {}", name, error.getMessage());
+                                return Mono.empty();
+                            });
+                })
+                .then();
+    }
+
+    private String partitionName(LocalDate periodStart) {
+        return PARTITION_PREFIX + granularity.suffix.format(periodStart);
+    }
+
+    // Partitions of the other granularity, the default partition and anything created by hand are left alone
+    private LocalDate periodStartOf(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        String suffix = name.substring(PARTITION_PREFIX.length());
+        if (suffix.length() != (granularity == Granularity.MONTH ? 6 : 8)) {
+            return null;
+        }
+        try {
+            return granularity.parse(suffix);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
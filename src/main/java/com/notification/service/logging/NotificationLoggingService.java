@@ -8,35 +8,47 @@ import com.notification.repository.NotificationLogRepository;
 import io.r2dbc.postgresql.codec.Json; // Import R2DBC Json type
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 
 @Service
+@DependsOn("notificationLogPartitionMaintainer")
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationLoggingService {
 
     private final NotificationLogRepository repository;
+    private final NotificationLogBatchWriter batchWriter;
     private final ObjectMapper objectMapper;
+    private final NotificationStatsService statsService;
 
     public Mono<NotificationLog> logNotification(
             NotificationEvent event,
             NotificationStatus status,
             String errorMessage,
             int retryCount) {
+        return logNotification(event, event.getMessage(), status, errorMessage, retryCount);
+    }
+
+    /**
+     * Logs a notification with the text that was actually sent, e.g. its rendered template.
+     */
+    public Mono<NotificationLog> logNotification(
+            NotificationEvent event,
+            String message,
+            NotificationStatus status,
+            String errorMessage,
+            int retryCount) {
 
         return Mono.fromCallable(() -> {
                     String destination = getDestinationString(event);
 
 
-                    String metadataString = event.getMetadata() != null
-                            ? objectMapper.writeValueAsString(event.getMetadata())
-                            : null;
-
-                    Json metadataJson = metadataString != null
-                            ? Json.of(metadataString)
+                    Json metadataJson = event.getMetadata() != null
+                            ? Json.of(objectMapper.writeValueAsBytes(event.getMetadata()))
                             : null;
 
                     return NotificationLog.builder()
@@ -45,7 +57,7 @@ public class NotificationLoggingService {
                             .subject(event.getSubject())
                             .source(event.getSource().getValue())
                             .destination(destination)
-                            .message(event.getMessage())
+                            .message(message != null ? message : unrenderedMessage(event))
                             .metadata(metadataJson) // Pass the Json object
                             .status(status.name())
                             .retryCount(retryCount)
@@ -54,16 +66,55 @@ public class NotificationLoggingService {
                             .updatedAt(LocalDateTime.now())
                             .build();
                 })
-                .flatMap(repository::save)
-                .doOnSuccess(saved -> log.debug("Logged notification with ID: {}", saved.getId()))
+                .flatMap(this::persist)
+                .doOnSuccess(saved -> {
+                    // A row still waiting in the write-behind buffer has no id yet
+                    if (saved.getId() != null) {
+                        log.debug("Logged notification with ID: {}", saved.getId());
+                    } else {
+                        log.debug("Queued notification log for {}", saved.getUsername());
+                    }
+                })
                 .doOnError(error -> log.error("Failed to log notification", error));
     }
 
+    /**
+     * Logs a notification that has already been delivered. A logging failure is only reported, never returned:
+     * the caller must not treat the notification as failed and send it again.
+     */
+    public Mono<Void> logDelivered(NotificationEvent event, String message) {
+        return logNotification(event, message, NotificationStatus.SUCCESS, null, 0)
+                .onErrorResume(error -> {
+                    log.error("Notification for {} was delivered but could not be logged", event.getUsername(), error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // A templated event that failed before rendering has no text; the template id stands in for it
+    private static String unrenderedMessage(NotificationEvent event) {
+        Object templateId = event.getMetadata() != null ? event.getMetadata().get(NotificationEvent.TEMPLATE_ID_METADATA) : null;
+        return templateId != null ? "[template " + templateId + "]" : "";
+    }
+
+    private Mono<NotificationLog> persist(NotificationLog notificationLog) {
+        return batchWriter.isEnabled()
+                ? batchWriter.write(notificationLog, this::recordStats)
+                : repository.save(notificationLog).doOnSuccess(this::recordStats);
+    }
+
+    // Only rows that reached the table are counted, so a failed write-behind flush is not reported as delivered
+    private void recordStats(NotificationLog saved) {
+        statsService.record(saved.getSource(), saved.getStatus(), saved.getCreatedAt());
+    }
+
     private String getDestinationString(NotificationEvent event) {
         return switch (event.getSource()) {
             case WHATSAPP -> event.getDestination().getWhatsappNumber();
             case EMAIL -> event.getDestination().getEmail();
-            case REALTIME -> event.getDestination().getUserId();
+            case REALTIME -> event.getDestination().getUserId() != null
+                    ? event.getDestination().getUserId()
+                    : "topic:" + event.getDestination().getTopic();
         };
     }
 }
\ No newline at end of file
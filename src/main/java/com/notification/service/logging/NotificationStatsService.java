@@ -0,0 +1,239 @@
+package com.notification.service.logging;
+
+import com.notification.model.dto.NotificationStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivery counts by minute, source and status, kept without ever counting {@code notification_logs}.
+ * <p>
+ * Every logged notification bumps an in-memory counter for its minute. Every {@code flush-interval} the deltas
+ * are added to {@code notification_stats_minute} with an additive upsert, so replicas can flush into the same
+ * rows. Reads aggregate the small minute table and add this replica's deltas that have not been flushed yet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationStatsService {
+
+    private static final String UPSERT_PREFIX = "INSERT INTO notification_stats_minute (bucket, source, status, count) VALUES ";
+    private static final String UPSERT_SUFFIX = " ON CONFLICT (bucket, source, status) "
+            + "DO UPDATE SET count = notification_stats_minute.count + EXCLUDED.count";
+
+    private final DatabaseClient databaseClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.stats.flush-interval:10000}")
+    private long flushInterval;
+
+    @Value("${notification.stats.retention:400}")
+    private int retentionDays;
+
+    @Value("${notification.stats.max-points:10000}")
+    private int maxPoints;
+
+    private final Map<Key, Bucket> pending = new ConcurrentHashMap<>();
+    private final Map<String, Counter> deliveryCounters = new ConcurrentHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @PostConstruct
+    public void start() {
+        subscriptions.add(Flux.interval(Duration.ofMillis(flushInterval))
+                .onBackpressureDrop()
+                .concatMap(tick -> flush())
+                .subscribe());
+
+        if (retentionDays > 0) {
+            subscriptions.add(Flux.interval(Duration.ofMinutes(1), Duration.ofHours(1))
+                    .onBackpressureDrop()
+                    .concatMap(tick -> expire())
+                    .subscribe());
+        }
+    }
+
+    /**
+     * Counts one logged notification. Called on the write path, so it only touches memory.
+     */
+    public void record(String source, String status, LocalDateTime createdAt) {
+        Key key = new Key(createdAt.truncatedTo(ChronoUnit.MINUTES), source, status);
+        pending.computeIfAbsent(key, k -> new Bucket()).count.increment();
+        deliveryCounters.computeIfAbsent(source + '|' + status, name -> Counter.builder("notification.delivery")
+                        .description("Logged notifications by source and status")
+                        .tag("source", source)
+                        .tag("status", status)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    public Mono<NotificationStats> stats(LocalDateTime from, LocalDateTime to, NotificationStats.Interval interval, String source) {
+        if (!to.isAfter(from)) {
+            return Mono.error(new IllegalArgumentException("to must be after from"));
+        }
+        ChronoUnit unit = unitOf(interval);
+        long points = unit.between(from.truncatedTo(unit), to);
+        if (points > maxPoints) {
+            return Mono.error(new IllegalArgumentException("Window spans " + points + " " + interval
+                    + " buckets, more than " + maxPoints + "; use a coarser interval"));
+        }
+
+        String sql = "SELECT date_trunc(:unit, bucket) AS bucket, source, status, SUM(count)::bigint AS count "
+                + "FROM notification_stats_minute WHERE bucket >= :from AND bucket < :to"
+                + (source != null ? " AND source = :source" : "")
+                + " GROUP BY 1, 2, 3";
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("unit", interval.name().toLowerCase())
+                .bind("from", from)
+                .bind("to", to);
+        if (source != null) {
+            spec = spec.bind("source", source);
+        }
+
+        return spec.map(row -> new NotificationStats.Point(
+                        row.get("bucket", LocalDateTime.class),
+                        row.get("source", String.class),
+                        row.get("status", String.class),
+                        row.get("count", Long.class)))
+                .all()
+                .collectList()
+                .map(stored -> {
+                    Map<Key, Long> merged = new TreeMap<>(Key.ORDER);
+                    for (NotificationStats.Point point : stored) {
+                        merged.merge(new Key(point.getBucket(), point.getSource(), point.getStatus()), point.getCount(), Long::sum);
+                    }
+                    // Add what this replica has counted but not flushed yet
+                    pending.forEach((key, bucket) -> {
+                        long value = bucket.unflushed();
+                        if (value > 0 && !key.bucket().isBefore(from) && key.bucket().isBefore(to)
+                                && (source == null || source.equals(key.source()))) {
+                            merged.merge(new Key(key.bucket().truncatedTo(unit), key.source(), key.status()), value, Long::sum);
+                        }
+                    });
+
+                    List<NotificationStats.Point> series = new ArrayList<>(merged.size());
+                    Map<String, Long> totals = new TreeMap<>();
+                    merged.forEach((key, count) -> {
+                        series.add(new NotificationStats.Point(key.bucket(), key.source(), key.status(), count));
+                        totals.merge(key.status(), count, Long::sum);
+                    });
+                    return new NotificationStats(from, to, interval, totals, series);
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    private Mono<Void> flush() {
+        LocalDateTime currentMinute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        Map<Key, Long> deltas = new TreeMap<>(Key.ORDER);
+
+        for (Map.Entry<Key, Bucket> entry : pending.entrySet()) {
+            Bucket bucket = entry.getValue();
+            long delta = bucket.unflushed();
+            if (delta > 0) {
+                bucket.flushed += delta;
+                deltas.put(entry.getKey(), delta);
+            } else if (entry.getKey().bucket().isBefore(currentMinute)) {
+                // Past minutes receive no more writes, so a fully flushed one can go
+                pending.remove(entry.getKey(), bucket);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+        int index = 0;
+        for (int row = 0; row < deltas.size(); row++) {
+            sql.append(row == 0 ? "(" : ", (")
+                    .append('$').append(++index).append(", $").append(++index)
+                    .append(", $").append(++index).append(", $").append(++index).append(')');
+        }
+        sql.append(UPSERT_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        index = 0;
+        for (Map.Entry<Key, Long> delta : deltas.entrySet()) {
+            spec = spec.bind(index++, delta.getKey().bucket())
+                    .bind(index++, delta.getKey().source())
+                    .bind(index++, delta.getKey().status())
+                    .bind(index++, delta.getValue());
+        }
+
+        return spec.then()
+                .doOnSuccess(v -> log.debug("Flushed {} notification stats buckets", deltas.size()))
+                .onErrorResume(error -> {
+                    log.error("Failed to flush {} notification stats buckets, keeping them for the next flush", deltas.size(), error);
+                    deltas.forEach((key, count) -> pending.computeIfAbsent(key, k -> new Bucket()).flushed -= count);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> expire() {
+        return databaseClient.sql("DELETE FROM notification_stats_minute WHERE bucket < :cutoff")
+                .bind("cutoff", LocalDateTime.now().minusDays(retentionDays))
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(rows -> {
+                    if (rows > 0) {
+                        log.info("Removed {} expired notification stats rows", rows);
+                    }
+                })
+                .then()
+                .onErrorResume(error -> {
+                    log.error("Failed to expire notification stats", error);
+                    return Mono.empty();
+                });
+    }
+
+    private static ChronoUnit unitOf(NotificationStats.Interval interval) {
+        return switch (interval) {
+            case MINUTE -> ChronoUnit.MINUTES;
+            case HOUR -> ChronoUnit.HOURS;
+            case DAY -> ChronoUnit.DAYS;
+        };
+    }
+
+    // The counter only ever grows; flushing records how much of it is already in the table instead of resetting it,
+    // which could drop increments racing with the reset
+    private static final class Bucket {
+        private final LongAdder count = new LongAdder();
+        private volatile long flushed;
+
+        long unflushed() {
+            return count.sum() - flushed;
+        }
+    }
+
+    private record Key(LocalDateTime bucket, String source, String status) {
+
+        static final Comparator<Key> ORDER = Comparator.comparing(Key::bucket)
+                .thenComparing(Key::source)
+                .thenComparing(Key::status);
+    }
+}
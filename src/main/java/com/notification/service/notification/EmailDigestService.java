@@ -0,0 +1,247 @@
+package com.notification.service.notification;
+
+import com.notification.model.dto.NotificationEvent;
+import com.notification.service.idempotency.IdempotencyService;
+import com.notification.service.kafka.KafkaDeadLetterService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merges bursts of email notifications for the same recipient into a single digest message.
+ * <p>
+ * Email events are grouped by {@code username} and address. A group opens on its first event and is sent once
+ * {@code window} has elapsed or {@code max-count} events have arrived, whichever comes first; a group holding a
+ * single event goes out as a normal email. Every event in a digest is still logged on its own.
+ * <p>
+ * Open groups live in a plain map that is only touched from one single-threaded scheduler: adding an event,
+ * closing a group on its window timer and the shutdown flush all run there, so an event can never arrive at a
+ * group that is being closed and get lost.
+ * <p>
+ * Callers complete as soon as their event is buffered, so the Kafka record is acknowledged before the email is
+ * sent and up to one window of buffered events is lost if the process dies. A digest that still fails after its
+ * retries is not lost: each of its events is re-encoded onto the dead letter topic, with its dedup key forgotten,
+ * so it can be replayed. Events whose {@code digest} metadata
+ * entry is {@code false} (one-time codes, password resets) bypass the buffer, as does everything once the buffer
+ * is full or shutting down.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDigestService {
+
+    public static final String DIGEST_METADATA = "digest";
+
+    private final EmailNotificationService emailService;
+    private final KafkaDeadLetterService deadLetterService;
+    private final IdempotencyService idempotencyService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.email.digest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.email.digest.window:60000}")
+    private long window;
+
+    @Value("${notification.email.digest.max-count:20}")
+    private int maxCount;
+
+    @Value("${notification.email.digest.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${notification.email.digest.send-concurrency:8}")
+    private int sendConcurrency;
+
+    @Value("${notification.email.digest.shutdown-timeout:30000}")
+    private long shutdownTimeout;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    // Only read and written on digestScheduler
+    private final Map<String, OpenDigest> open = new HashMap<>();
+
+    private Scheduler digestScheduler;
+    private Sinks.Many<List<NotificationEvent>> ready;
+    private Disposable subscription;
+    private volatile boolean accepting;
+    private boolean closed;
+
+    private DistributionSummary digestSizeSummary;
+    private Counter overflowCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        digestSizeSummary = DistributionSummary.builder("notification.email.digest.size")
+                .description("Notifications merged into each digest email")
+                .register(meterRegistry);
+        overflowCounter = Counter.builder("notification.email.digest.overflow")
+                .description("Email notifications sent directly because the digest buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.digest.pending", pending, AtomicInteger::get)
+                .description("Email notifications waiting in an open digest")
+                .register(meterRegistry);
+
+        digestScheduler = Schedulers.newSingle("email-digest");
+        // Closed digests are only emitted from digestScheduler, and at most buffer-capacity events are pending
+        ready = Sinks.many().unicast().onBackpressureBuffer();
+
+        subscription = ready.asFlux()
+                .flatMap(this::send, sendConcurrency)
+                .doFinally(signal -> drained.countDown())
+                .subscribe(
+                        null,
+                        error -> log.error("Email digest pipeline terminated", error)
+                );
+
+        accepting = true;
+        log.info("Email digest enabled: window={}ms, maxCount={}, capacity={}", window, maxCount, bufferCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an email event for the recipient's next digest, or sends it straight away if it opted out or the
+     * buffer cannot take it.
+     */
+    public Mono<Void> sendNotification(NotificationEvent event) {
+        // Nothing is buffered until subscription, so a caller that never subscribes (e.g. a duplicate) adds nothing
+        return Mono.defer(() -> {
+            if (!accepting || !isDigestible(event)) {
+                return emailService.sendNotification(event);
+            }
+
+            if (pending.incrementAndGet() > bufferCapacity) {
+                pending.decrementAndGet();
+                overflowCounter.increment();
+                log.warn("Email digest buffer full, sending notification for {} directly", event.getUsername());
+                return emailService.sendNotification(event);
+            }
+
+            return Mono.defer(() -> add(event)).subscribeOn(digestScheduler);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled || digestScheduler == null) {
+            return;
+        }
+
+        // Closing every open group sends pending digests immediately; events added afterwards are sent directly
+        accepting = false;
+        digestScheduler.schedule(() -> {
+            closed = true;
+            List.copyOf(open.entrySet()).forEach(entry -> close(entry.getKey(), entry.getValue()));
+            ready.tryEmitComplete();
+        });
+
+        try {
+            if (!drained.await(shutdownTimeout, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out sending email digests on shutdown, {} notifications not sent", pending.get());
+                subscription.dispose();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscription.dispose();
+        } finally {
+            digestScheduler.dispose();
+        }
+    }
+
+    // Runs on digestScheduler
+    private Mono<Void> add(NotificationEvent event) {
+        if (closed) {
+            pending.decrementAndGet();
+            return emailService.sendNotification(event);
+        }
+
+        String key = recipientKey(event);
+        OpenDigest digest = open.get(key);
+        if (digest == null) {
+            digest = new OpenDigest();
+            open.put(key, digest);
+            OpenDigest opened = digest;
+            digest.timer = digestScheduler.schedule(() -> close(key, opened), window, TimeUnit.MILLISECONDS);
+        }
+
+        digest.events.add(event);
+        if (digest.events.size() >= maxCount) {
+            digest.timer.dispose();
+            close(key, digest);
+        }
+        return Mono.empty();
+    }
+
+    // Runs on digestScheduler; a timer that fires after its digest was already sent finds a newer one, or nothing
+    private void close(String key, OpenDigest digest) {
+        if (open.remove(key, digest)) {
+            ready.tryEmitNext(digest.events);
+        }
+    }
+
+    private Mono<Void> send(List<NotificationEvent> events) {
+        digestSizeSummary.record(events.size());
+        return emailService.sendDigest(events)
+                .onErrorResume(error -> deadLetter(events, error))
+                .doFinally(signal -> pending.addAndGet(-events.size()));
+    }
+
+    // Their records were acknowledged when buffered, so the dead letter topic is the only way back for these events
+    private Mono<Void> deadLetter(List<NotificationEvent> events, Throwable error) {
+        String errorMessage = String.valueOf(error.getMessage());
+        return Flux.fromIterable(events)
+                .concatMap(event -> idempotencyService.forget(event)
+                        .then(deadLetterService.sendToDeadLetterTopic(event, errorMessage))
+                        .onErrorResume(dltError -> {
+                            log.error("Lost email notification {} for {}: digest failed ({}) and dead-lettering failed",
+                                    event.getEventId(), event.getUsername(), errorMessage, dltError);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private static boolean isDigestible(NotificationEvent event) {
+        String email = event.getDestination() != null ? event.getDestination().getEmail() : null;
+        if (email == null || email.isBlank()) {
+            return false;
+        }
+        Object digest = event.getMetadata() != null ? event.getMetadata().get(DIGEST_METADATA) : null;
+        return digest == null || !"false".equalsIgnoreCase(digest.toString());
+    }
+
+    private static String recipientKey(NotificationEvent event) {
+        return event.getUsername() + '|' + event.getDestination().getEmail().toLowerCase();
+    }
+
+    private static final class OpenDigest {
+        private final List<NotificationEvent> events = new ArrayList<>();
+        private Disposable timer;
+    }
+}
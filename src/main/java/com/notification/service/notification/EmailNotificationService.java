@@ -1,8 +1,13 @@
 package com.notification.service.notification;
 
+import com.notification.config.RetryConfig;
 import com.notification.model.dto.NotificationEvent;
+import com.notification.model.dto.NotificationSource;
 import com.notification.model.dto.NotificationStatus;
+import com.notification.service.execution.ChannelBulkhead;
 import com.notification.service.logging.NotificationLoggingService;
+import com.notification.service.ratelimit.OutboundRateLimiter;
+import com.notification.service.template.TemplateEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,19 +15,33 @@ import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailNotificationService {
 
+    private static final String EMAIL_BODY_TEMPLATE = "email-body";
+    private static final String DIGEST_BODY_TEMPLATE = "email-digest";
+    private static final String DIGEST_ITEM_TEMPLATE = "email-digest-item";
+    private static final String DIGEST_SUBJECT_TEMPLATE = "email-digest-subject";
+
     private final JavaMailSender mailSender;
     private final NotificationLoggingService loggingService;
+    private final ChannelBulkhead emailBulkhead;
+    private final SmtpTransportPool transportPool;
+    private final OutboundRateLimiter rateLimiter;
+    private final RetryConfig retryConfig;
+    private final TemplateEngine templateEngine;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -40,47 +59,106 @@ public class EmailNotificationService {
             return Mono.error(new IllegalArgumentException("Email address is required"));
         }
 
-        return sendEmail(email, event.getSubject(), event.getMessage(), event.getUserName())
-                .flatMap(v -> loggingService.logNotification(event, NotificationStatus.SUCCESS, null, 0))
-                .doOnSuccess(v -> log.info("Email notification sent successfully to {}", email))
-                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(backoffDelay))
-                        .doBeforeRetry(signal -> log.warn("Retrying email notification, attempt: {}", signal.totalRetries() + 1)))
+        // Renders and sends; only this is retried, so a failure to log afterwards never sends the email again
+        Mono<String> attempt = Mono.fromCallable(() -> templateEngine.renderMessage(event))
+                .flatMap(message -> Mono.fromCallable(() -> templateEngine.render(EMAIL_BODY_TEMPLATE, event, message))
+                        .flatMap(body -> sendEmail(email, event.getSubject(), body))
+                        .thenReturn(message));
+
+        if (!retryConfig.isTopicMode()) {
+            // In topic mode the consumer parks the record on a delay topic and logs the attempt
+            attempt = attempt
+                    .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(backoffDelay))
+                            .doBeforeRetry(signal -> log.warn("Retrying email notification, attempt: {}", signal.totalRetries() + 1)))
+                    .onErrorResume(error -> {
+                        log.error("Failed to send email notification to {}: {}", email, error.getMessage());
+                        return loggingService.logNotification(event, NotificationStatus.FAILED, error.getMessage(), maxRetries)
+                                .then(Mono.error(error));
+                    });
+        }
+
+        return attempt
+                .flatMap(message -> loggingService.logDelivered(event, message))
+                .doOnSuccess(v -> log.info("Email notification sent successfully to {}", email));
+    }
+
+    /**
+     * Sends a batch of email events for one recipient as a single message and logs every event in it.
+     * <p>
+     * The events have already been acknowledged upstream, so failures are always retried inline rather than
+     * through the retry topics, and a batch that still fails is logged as FAILED event by event.
+     */
+    public Mono<Void> sendDigest(List<NotificationEvent> events) {
+        NotificationEvent first = events.get(0);
+        String email = first.getDestination().getEmail();
+
+        return Mono.fromCallable(() -> buildDigest(events))
+                .flatMap(digest -> sendEmail(email, digest.subject(), digest.body())
+                        .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(backoffDelay))
+                                .doBeforeRetry(signal -> log.warn("Retrying email digest to {}, attempt: {}", email, signal.totalRetries() + 1)))
+                        .thenReturn(digest))
                 .onErrorResume(error -> {
-                    log.error("Failed to send email notification to {}: {}", email, error.getMessage());
-                    return loggingService.logNotification(event, NotificationStatus.FAILED, error.getMessage(), maxRetries)
+                    log.error("Failed to send email digest of {} notifications to {}: {}", events.size(), email, error.getMessage());
+                    return Flux.fromIterable(events)
+                            .concatMap(event -> loggingService.logNotification(event, NotificationStatus.FAILED, error.getMessage(), maxRetries))
                             .then(Mono.error(error));
                 })
-                .then();
+                .flatMap(digest -> Flux.range(0, events.size())
+                        .concatMap(i -> loggingService.logDelivered(events.get(i), digest.messages().get(i)))
+                        .then())
+                .doOnSuccess(v -> log.info("Email digest of {} notifications sent to {}", events.size(), email));
+    }
+
+    private Digest buildDigest(List<NotificationEvent> events) {
+        List<String> messages = events.stream()
+                .map(templateEngine::renderMessage)
+                .toList();
+
+        NotificationEvent first = events.get(0);
+        if (events.size() == 1) {
+            return new Digest(first.getSubject(), templateEngine.render(EMAIL_BODY_TEMPLATE, first, messages.get(0)), messages);
+        }
+
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < events.size(); i++) {
+            items.append(templateEngine.render(DIGEST_ITEM_TEMPLATE, events.get(i), messages.get(i)));
+        }
+
+        Locale locale = TemplateEngine.localeOf(first);
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("user_name", first.getUserName());
+        variables.put("username", first.getUsername());
+        variables.put("count", events.size());
+        variables.put("items", items);
+
+        return new Digest(templateEngine.render(DIGEST_SUBJECT_TEMPLATE, locale, variables),
+                templateEngine.render(DIGEST_BODY_TEMPLATE, locale, variables), messages);
     }
 
-    private Mono<Void> sendEmail(String to, String subject, String message, String userName) {
-        return Mono.fromRunnable(() -> {
+    private Mono<Void> sendEmail(String to, String subject, String body) {
+        Mono<Void> send = emailBulkhead.run(() -> {
                     try {
                         SimpleMailMessage mailMessage = new SimpleMailMessage();
                         mailMessage.setFrom(fromEmail);
                         mailMessage.setTo(to);
                         mailMessage.setSubject(subject);
-                        mailMessage.setText(buildEmailBody(userName, message));
-                        
-                        mailSender.send(mailMessage);
+                        mailMessage.setText(body);
+
+                        if (transportPool.isEnabled()) {
+                            transportPool.send(mailMessage);
+                        } else {
+                            mailSender.send(mailMessage);
+                        }
                         log.debug("Email sent successfully to: {}", to);
                     } catch (MailException e) {
                         log.error("Failed to send email", e);
                         throw new RuntimeException("Failed to send email: " + e.getMessage(), e);
                     }
-                })
-                .subscribeOn(Schedulers.boundedElastic())
-                .then();
+                });
+
+        return rateLimiter.limit(NotificationSource.EMAIL, fromEmail, send);
     }
 
-    private String buildEmailBody(String userName, String message) {
-        return String.format("""
-                Hi %s,
-                
-                %s
-                
-                Best regards,
-                Notification Service
-                """, userName, message);
+    private record Digest(String subject, String body, List<String> messages) {
     }
 }
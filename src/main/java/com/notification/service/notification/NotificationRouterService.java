@@ -13,7 +13,7 @@ import reactor.core.publisher.Mono;
 public class NotificationRouterService {
 
     private final WhatsAppNotificationService whatsAppService;
-    private final EmailNotificationService emailService;
+    private final EmailDigestService emailDigestService;
     private final RealtimeNotificationService realtimeService;
 
     public Mono<Void> routeNotification(NotificationEvent event) {
@@ -21,7 +21,7 @@ public class NotificationRouterService {
 
         return switch (event.getSource()) {
             case WHATSAPP -> whatsAppService.sendNotification(event);
-            case EMAIL -> emailService.sendNotification(event);
+            case EMAIL -> emailDigestService.sendNotification(event);
             case REALTIME -> realtimeService.sendNotification(event);
             default -> Mono.error(new IllegalArgumentException("Unsupported notification source: " + event.getSource()));
         };
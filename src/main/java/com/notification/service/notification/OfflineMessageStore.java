@@ -0,0 +1,168 @@
+package com.notification.service.notification;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds real-time notifications for users with no open WebSocket anywhere in the cluster and replays them when
+ * the user connects again.
+ * <p>
+ * Each user gets a Redis list of serialized frames under {@code ws:offline:<userId>}, capped at
+ * {@code max-messages} (oldest dropped first) and expiring {@code ttl} seconds after the last write. Storing and
+ * draining are single scripted round trips, and the drained backlog is written to each new session in one flush.
+ * <p>
+ * A notification can be stored just after its user reconnected, once the connect-time drain has already run. So
+ * after every store the user's presence is checked again, locally and, with cluster routing, in the owner
+ * registry, and a user found connected is replayed to straight away. On connect the drain only runs after this
+ * node's ownership is registered, so one side always sees the other. A backlog that cannot be delivered goes back
+ * to the head of the list, ahead of anything stored in the meantime.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OfflineMessageStore {
+
+    private static final String KEY_PREFIX = "ws:offline:";
+
+    private static final RedisScript<Long> APPEND = RedisScript.of("""
+            redis.call('rpush', KEYS[1], ARGV[1])
+            redis.call('ltrim', KEYS[1], -tonumber(ARGV[2]), -1)
+            redis.call('expire', KEYS[1], ARGV[3])
+            return redis.call('llen', KEYS[1])
+            """, Long.class);
+
+    private static final RedisScript<Long> PREPEND = RedisScript.of("""
+            for i = #ARGV, 3, -1 do
+                redis.call('lpush', KEYS[1], ARGV[i])
+            end
+            redis.call('ltrim', KEYS[1], -tonumber(ARGV[1]), -1)
+            redis.call('expire', KEYS[1], ARGV[2])
+            return redis.call('llen', KEYS[1])
+            """, Long.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN = RedisScript.of("""
+            local messages = redis.call('lrange', KEYS[1], 0, -1)
+            redis.call('del', KEYS[1])
+            return messages
+            """, List.class);
+
+    private final WebSocketNotificationHandler webSocketHandler;
+    private final WebSocketClusterRouter clusterRouter;
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Value("${notification.offline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.offline.max-messages:100}")
+    private int maxMessages;
+
+    @Value("${notification.offline.ttl:86400}")
+    private long ttlSeconds;
+
+    private Disposable replaySubscription;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        replaySubscription = webSocketHandler.presenceEvents()
+                .filter(WebSocketNotificationHandler.PresenceEvent::connected)
+                .flatMap(event -> clusterRouter.claimOwnership(event.userId()).then(replay(event.userId())))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (replaySubscription != null) {
+            replaySubscription.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<Void> store(String userId, byte[] payload) {
+        return redisTemplate.execute(APPEND, List.of(KEY_PREFIX + userId),
+                        List.of(new String(payload, StandardCharsets.UTF_8), String.valueOf(maxMessages), String.valueOf(ttlSeconds)))
+                .next()
+                .doOnNext(size -> log.debug("Buffered offline notification for user {} ({} pending)", userId, size))
+                .then(isConnected(userId))
+                .flatMap(connected -> connected ? replay(userId) : Mono.empty());
+    }
+
+    private Mono<Boolean> isConnected(String userId) {
+        if (webSocketHandler.getConnectedUserIds().contains(userId)) {
+            return Mono.just(true);
+        }
+        return clusterRouter.hasOwner(userId);
+    }
+
+    // The user's session is on another node; whatever cannot be handed over goes back to the head of the list
+    private Mono<Void> forward(String userId, List<byte[]> payloads) {
+        return Flux.fromIterable(payloads)
+                .concatMap(payload -> clusterRouter.forward(userId, payload, null)
+                        .filter(forwarded -> !forwarded)
+                        .map(notForwarded -> payload))
+                .collectList()
+                .flatMap(undelivered -> {
+                    if (undelivered.isEmpty()) {
+                        log.info("Forwarded {} buffered notifications for user {} to their node", payloads.size(), userId);
+                        return Mono.empty();
+                    }
+                    log.warn("User {} disconnected before replay, re-buffering {} notifications", userId, undelivered.size());
+                    return prepend(userId, undelivered);
+                });
+    }
+
+    private Mono<Void> prepend(String userId, List<byte[]> payloads) {
+        List<String> args = new ArrayList<>(payloads.size() + 2);
+        args.add(String.valueOf(maxMessages));
+        args.add(String.valueOf(ttlSeconds));
+        payloads.forEach(payload -> args.add(new String(payload, StandardCharsets.UTF_8)));
+
+        return redisTemplate.execute(PREPEND, List.of(KEY_PREFIX + userId), args)
+                .then();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Void> replay(String userId) {
+        return redisTemplate.execute(DRAIN, List.of(KEY_PREFIX + userId), List.of())
+                .next()
+                .map(messages -> (List<String>) messages)
+                .filter(messages -> !messages.isEmpty())
+                .flatMap(messages -> {
+                    List<byte[]> payloads = messages.stream()
+                            .map(message -> message.getBytes(StandardCharsets.UTF_8))
+                            .toList();
+
+                    return webSocketHandler.sendAllToUser(userId, payloads)
+                            .flatMap(delivered -> {
+                                if (delivered > 0) {
+                                    log.info("Replayed {} buffered notifications to user {}", payloads.size(), userId);
+                                    return Mono.empty();
+                                }
+                                return forward(userId, payloads);
+                            });
+                })
+                .onErrorResume(error -> {
+                    log.error("Failed to replay buffered notifications for user {}", userId, error);
+                    return Mono.empty();
+                });
+    }
+}
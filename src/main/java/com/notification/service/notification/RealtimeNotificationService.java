@@ -3,6 +3,7 @@ package com.notification.service.notification;
 import com.notification.model.dto.NotificationEvent;
 import com.notification.model.dto.NotificationStatus;
 import com.notification.service.logging.NotificationLoggingService;
+import com.notification.service.template.TemplateEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -14,22 +15,42 @@ import reactor.core.publisher.Mono;
 public class RealtimeNotificationService {
 
     private final WebSocketNotificationHandler webSocketHandler;
+    private final WebSocketClusterRouter clusterRouter;
+    private final OfflineMessageStore offlineStore;
     private final NotificationLoggingService loggingService;
+    private final TemplateEngine templateEngine;
 
     public Mono<Void> sendNotification(NotificationEvent event) {
         String userId = event.getDestination().getUserId();
+        String topic = event.getDestination().getTopic();
 
-        if (userId == null || userId.isBlank()) {
-            return Mono.error(new IllegalArgumentException("User ID is required for real-time notification"));
+        if ((userId == null || userId.isBlank()) && (topic == null || topic.isBlank())) {
+            return Mono.error(new IllegalArgumentException("User ID or topic is required for real-time notification"));
         }
 
-        return webSocketHandler.sendNotificationToUser(userId, event)
+        return Mono.fromCallable(() -> templateEngine.renderMessage(event))
+                .flatMap(message -> Mono.fromCallable(() -> webSocketHandler.serialize(event, message))
+                        .flatMap(bytes -> (userId != null && !userId.isBlank())
+                                ? sendToUser(event, message, userId, bytes)
+                                : broadcastToTopic(event, message, topic, bytes)));
+    }
+
+    private Mono<Void> sendToUser(NotificationEvent event, String message, String userId, byte[] payload) {
+        String coalesceKey = WebSocketNotificationHandler.coalesceKey(event);
+
+        return Mono.zip(webSocketHandler.sendToUser(userId, payload, coalesceKey), clusterRouter.forward(userId, payload, coalesceKey))
+                .map(delivered -> delivered.getT1() > 0 || delivered.getT2())
                 .flatMap(sent -> {
                     if (sent) {
-                        return loggingService.logNotification(event, NotificationStatus.SUCCESS, null, 0);
+                        return loggingService.logDelivered(event, message);
+                    } else if (offlineStore.isEnabled()) {
+                        log.info("User {} is offline, buffering real-time notification for replay", userId);
+                        return offlineStore.store(userId, payload)
+                                .then(loggingService.logNotification(event, message, NotificationStatus.BUFFERED, "User not connected", 0))
+                                .then();
                     } else {
-                        return loggingService.logNotification(event, NotificationStatus.FAILED, "User not connected", 0)
-                                .then(Mono.error(new RuntimeException("User not connected via WebSocket")));
+                        return loggingService.logNotification(event, message, NotificationStatus.FAILED, "User not connected", 0)
+                                .then(Mono.<Void>error(new RuntimeException("User not connected via WebSocket")));
                     }
                 })
                 .doOnSuccess(v -> log.info("Real-time notification sent successfully to user {}", userId))
@@ -39,4 +60,26 @@ public class RealtimeNotificationService {
                 })
                 .then();
     }
+
+    private Mono<Void> broadcastToTopic(NotificationEvent event, String message, String topic, byte[] payload) {
+        String coalesceKey = WebSocketNotificationHandler.coalesceKey(event);
+
+        return Mono.zip(webSocketHandler.broadcastToTopic(topic, payload, coalesceKey),
+                        clusterRouter.broadcast(topic, payload, coalesceKey))
+                .flatMap(delivered -> {
+                    if (delivered.getT1() == 0 && delivered.getT2() == 0) {
+                        log.warn("Real-time notification broadcast to topic {} reached no subscribers", topic);
+                        return loggingService.logNotification(event, message, NotificationStatus.UNDELIVERED, "No subscribers on topic", 0)
+                                .then();
+                    }
+                    log.info("Real-time notification broadcast to topic {}: {} local sessions, {} other nodes",
+                            topic, delivered.getT1(), delivered.getT2());
+                    return loggingService.logDelivered(event, message);
+                })
+                .onErrorResume(error -> {
+                    log.error("Failed to broadcast real-time notification to topic {}: {}", topic, error.getMessage());
+                    return Mono.error(error);
+                })
+                .then();
+    }
 }
@@ -0,0 +1,159 @@
+package com.notification.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded queue of frames waiting to be written to one WebSocket session.
+ * <p>
+ * Producers only ever enqueue; {@link #frames()} is handed to {@code session.send(...)} once, so a single writer
+ * drains the queue at whatever pace the client reads. When the queue is full the {@link OverflowPolicy} decides
+ * whether the oldest frame is dropped or the client is disconnected, so a slow client never holds more than
+ * {@code capacity} frames in memory and never blocks the caller.
+ */
+@Slf4j
+class SessionOutbox {
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Counter droppedCounter;
+    private final Counter coalescedCounter;
+    private final Counter disconnectedCounter;
+
+    private final Deque<Frame> queue = new ArrayDeque<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile FluxSink<WebSocketMessage> sink;
+    private volatile boolean closed;
+
+    SessionOutbox(WebSocketSession session, int capacity, OverflowPolicy policy,
+                  Counter droppedCounter, Counter coalescedCounter, Counter disconnectedCounter) {
+        this.session = session;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.droppedCounter = droppedCounter;
+        this.coalescedCounter = coalescedCounter;
+        this.disconnectedCounter = disconnectedCounter;
+    }
+
+    /**
+     * The frames to write, emitted only as the session asks for more.
+     */
+    Flux<WebSocketMessage> frames() {
+        return Flux.create(emitter -> {
+            sink = emitter;
+            emitter.onRequest(n -> drain());
+            emitter.onDispose(this::close);
+            drain();
+        });
+    }
+
+    /**
+     * @param coalesceKey frames with the same non-null key replace one another while still queued under
+     *                    {@link OverflowPolicy#COALESCE}
+     * @return {@code false} if the outbox is closed or the frame overflowed a {@link OverflowPolicy#DISCONNECT} queue
+     */
+    boolean offer(byte[] payload, String coalesceKey) {
+        boolean overflowed = false;
+
+        synchronized (queue) {
+            if (closed) {
+                return false;
+            }
+            if (policy == OverflowPolicy.COALESCE && coalesceKey != null
+                    && queue.removeIf(frame -> coalesceKey.equals(frame.coalesceKey()))) {
+                coalescedCounter.increment();
+            }
+            if (queue.size() >= capacity) {
+                if (policy == OverflowPolicy.DISCONNECT) {
+                    overflowed = true;
+                } else {
+                    queue.pollFirst();
+                    droppedCounter.increment();
+                }
+            }
+            if (!overflowed) {
+                queue.addLast(new Frame(payload, coalesceKey));
+            }
+        }
+
+        if (overflowed) {
+            disconnectedCounter.increment();
+            log.warn("Outbound queue for WebSocket session {} is full, disconnecting slow client", session.getId());
+            close();
+            session.close(CloseStatus.SERVICE_OVERLOAD).subscribe();
+            return false;
+        }
+
+        drain();
+        return true;
+    }
+
+    int depth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    void close() {
+        synchronized (queue) {
+            closed = true;
+            queue.clear();
+        }
+        FluxSink<WebSocketMessage> current = sink;
+        if (current != null) {
+            current.complete();
+        }
+    }
+
+    // Only one thread emits at a time; callers arriving mid-drain just make the active drainer loop again
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            FluxSink<WebSocketMessage> current = sink;
+            if (current != null) {
+                while (current.requestedFromDownstream() > 0 && !current.isCancelled()) {
+                    Frame frame;
+                    synchronized (queue) {
+                        frame = queue.pollFirst();
+                    }
+                    if (frame == null) {
+                        break;
+                    }
+                    // Wraps the shared payload without copying it; each session still needs its own buffer instance
+                    current.next(new WebSocketMessage(WebSocketMessage.Type.TEXT, session.bufferFactory().wrap(frame.payload())));
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private record Frame(byte[] payload, String coalesceKey) {
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Drop the oldest queued frame to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Replace a queued frame with the same coalesce key, otherwise drop the oldest one.
+         */
+        COALESCE,
+        /**
+         * Close the session; the client is expected to reconnect and catch up.
+         */
+        DISCONNECT
+    }
+}
@@ -0,0 +1,223 @@
+package com.notification.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a small pool of connected, authenticated SMTP transports so that each email does not pay for a new
+ * TCP connection, STARTTLS handshake and AUTH exchange.
+ * <p>
+ * A transport is closed and replaced after {@code max-messages-per-connection} sends, after sitting idle for
+ * longer than {@code max-idle}, or as soon as a send on it fails. Callers block while borrowing, so this is
+ * only meant to be used from the email bulkhead.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SmtpTransportPool {
+
+    private static final long PROBE_AFTER_IDLE_MILLIS = 1000;
+
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.email.pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.email.pool.size:8}")
+    private int size;
+
+    @Value("${notification.email.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${notification.email.pool.max-idle:30000}")
+    private long maxIdle;
+
+    @Value("${notification.email.pool.borrow-timeout:10000}")
+    private long borrowTimeout;
+
+    private JavaMailSenderImpl sender;
+    private BlockingQueue<PooledTransport> idle;
+    private Semaphore permits;
+
+    private Counter openedCounter;
+    private Counter recycledCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            log.warn("SMTP transport pooling needs a JavaMailSenderImpl, got {}; pooling disabled",
+                    mailSender.getClass().getName());
+            enabled = false;
+            return;
+        }
+
+        sender = impl;
+        idle = new ArrayBlockingQueue<>(size);
+        permits = new Semaphore(size, true);
+
+        openedCounter = Counter.builder("notification.email.smtp.connections.opened")
+                .description("SMTP connections opened by the transport pool")
+                .register(meterRegistry);
+        recycledCounter = Counter.builder("notification.email.smtp.connections.recycled")
+                .description("SMTP connections closed for reaching their message limit, idling or failing")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.smtp.connections.idle", () -> idle.size())
+                .description("Connected SMTP transports waiting in the pool")
+                .register(meterRegistry);
+
+        log.info("SMTP transport pool enabled: size={}, maxMessagesPerConnection={}", size, maxMessagesPerConnection);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void send(SimpleMailMessage message) {
+        PooledTransport transport = borrow();
+        boolean healthy = false;
+        try {
+            MimeMessage mimeMessage = sender.createMimeMessage();
+            message.copyTo(new MimeMailMessage(mimeMessage));
+            if (mimeMessage.getSentDate() == null) {
+                mimeMessage.setSentDate(new Date());
+            }
+            mimeMessage.saveChanges();
+
+            transport.transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+            transport.sent++;
+            healthy = true;
+        } catch (MessagingException e) {
+            throw new MailSendException("Failed to send email over pooled SMTP connection: " + e.getMessage(), e);
+        } finally {
+            release(transport, healthy);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (idle == null) {
+            return;
+        }
+        PooledTransport transport;
+        while ((transport = idle.poll()) != null) {
+            close(transport);
+        }
+    }
+
+    private PooledTransport borrow() {
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("Timed out waiting for a pooled SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for a pooled SMTP connection", e);
+        }
+
+        try {
+            PooledTransport transport;
+            while ((transport = idle.poll()) != null) {
+                if (isReusable(transport)) {
+                    return transport;
+                }
+                recycle(transport);
+            }
+            return open();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledTransport transport, boolean healthy) {
+        try {
+            if (healthy && transport.sent < maxMessagesPerConnection) {
+                transport.lastUsed = System.nanoTime();
+                if (idle.offer(transport)) {
+                    return;
+                }
+            }
+            recycle(transport);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isReusable(PooledTransport transport) {
+        long idleFor = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - transport.lastUsed);
+        if (idleFor >= maxIdle) {
+            return false;
+        }
+        // isConnected() costs a NOOP round trip, so only probe connections that have been quiet for a while
+        return idleFor < PROBE_AFTER_IDLE_MILLIS || transport.transport.isConnected();
+    }
+
+    private PooledTransport open() {
+        try {
+            Transport transport = sender.getSession().getTransport(resolveProtocol());
+            transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+            openedCounter.increment();
+            log.debug("Opened pooled SMTP connection to {}:{}", sender.getHost(), sender.getPort());
+            return new PooledTransport(transport);
+        } catch (MessagingException e) {
+            throw new MailSendException("Failed to open SMTP connection: " + e.getMessage(), e);
+        }
+    }
+
+    // Same resolution JavaMailSenderImpl applies when it opens a transport itself
+    private String resolveProtocol() {
+        String protocol = sender.getProtocol();
+        if (protocol == null) {
+            protocol = sender.getSession().getProperty("mail.transport.protocol");
+        }
+        return protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+    }
+
+    private void recycle(PooledTransport transport) {
+        recycledCounter.increment();
+        close(transport);
+    }
+
+    private void close(PooledTransport transport) {
+        try {
+            transport.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection", e);
+        }
+    }
+
+    private static class PooledTransport {
+        private final Transport transport;
+        private int sent;
+        private long lastUsed = System.nanoTime();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
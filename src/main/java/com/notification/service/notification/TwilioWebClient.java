@@ -0,0 +1,117 @@
+package com.notification.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.notification.model.dto.WhatsAppSendResult;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking client for the Twilio Messages REST API, used instead of the blocking Twilio SDK when
+ * {@code twilio.client=WEBCLIENT}. Requests share a bounded, keep-alive connection pool.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TwilioWebClient {
+
+    private static final String MESSAGES_PATH = "/2010-04-01/Accounts/{accountSid}/Messages.json";
+
+    private final WebClient.Builder webClientBuilder;
+
+    @Value("${twilio.account-sid}")
+    private String accountSid;
+
+    @Value("${twilio.auth-token}")
+    private String authToken;
+
+    @Value("${twilio.api.base-url:https://api.twilio.com}")
+    private String baseUrl;
+
+    @Value("${twilio.api.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${twilio.api.pending-acquire-timeout:5000}")
+    private long pendingAcquireTimeout;
+
+    @Value("${twilio.api.max-idle-time:30000}")
+    private long maxIdleTime;
+
+    @Value("${twilio.api.connect-timeout:3000}")
+    private int connectTimeout;
+
+    @Value("${twilio.api.response-timeout:10000}")
+    private long responseTimeout;
+
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+
+    @PostConstruct
+    public void init() {
+        connectionProvider = ConnectionProvider.builder("twilio")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeout))
+                .maxIdleTime(Duration.ofMillis(maxIdleTime))
+                .evictInBackground(Duration.ofMillis(maxIdleTime))
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                .responseTimeout(Duration.ofMillis(responseTimeout));
+
+        webClient = webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeaders(headers -> headers.setBasicAuth(accountSid, authToken))
+                .build();
+    }
+
+    public Mono<WhatsAppSendResult> sendMessage(String to, String from, String body) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("To", to);
+        form.add("From", from);
+        form.add("Body", body);
+
+        return webClient.post()
+                .uri(MESSAGES_PATH, accountSid)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromFormData(form))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response ->
+                        response.createException()
+                                .doOnNext(error -> log.error("Twilio API error {}: {}",
+                                        error.getStatusCode(), error.getResponseBodyAsString()))
+                )
+                .bodyToMono(JsonNode.class)
+                .map(response -> new WhatsAppSendResult(
+                        response.path("sid").asText(null),
+                        response.path("status").asText(null)
+                ));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+}
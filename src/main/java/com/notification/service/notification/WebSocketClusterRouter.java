@@ -0,0 +1,306 @@
+package com.notification.service.notification;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Routes real-time notifications to whichever replica holds the user's WebSocket.
+ * <p>
+ * Each node adds itself to {@code ws:nodes:<userId>} in Redis for every user with a session on it, and listens
+ * on its own {@code ws:forward:<nodeId>} pub/sub channel. A notification for a user with sessions elsewhere is
+ * queued once per owning node, and queued forwards are published to each node in batches. Topic broadcasts go to
+ * every node over the shared {@code ws:broadcast} channel.
+ * <p>
+ * Payloads travel already serialized, so a notification is serialized once for the whole cluster.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WebSocketClusterRouter {
+
+    private static final String NODES_KEY_PREFIX = "ws:nodes:";
+    private static final String FORWARD_CHANNEL_PREFIX = "ws:forward:";
+    private static final String BROADCAST_CHANNEL = "ws:broadcast";
+
+    private static final RedisScript<Long> CLAIM_OWNERSHIP = RedisScript.of("""
+            redis.call('sadd', KEYS[1], ARGV[1])
+            return redis.call('expire', KEYS[1], ARGV[2])
+            """, Long.class);
+
+    private static final TypeReference<List<ForwardedNotification>> BATCH_TYPE = new TypeReference<>() {
+    };
+
+    private final WebSocketNotificationHandler webSocketHandler;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notification.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.cluster.node-id:}")
+    private String nodeId;
+
+    @Value("${notification.cluster.owner-ttl:300}")
+    private long ownerTtlSeconds;
+
+    @Value("${notification.cluster.heartbeat-interval:60}")
+    private long heartbeatIntervalSeconds;
+
+    @Value("${notification.cluster.forward-batch-size:100}")
+    private int forwardBatchSize;
+
+    @Value("${notification.cluster.forward-batch-window:20}")
+    private long forwardBatchWindow;
+
+    @Value("${notification.cluster.forward-buffer-capacity:10000}")
+    private int forwardBufferCapacity;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    private Sinks.Many<PendingForward> outbound;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+
+        outbound = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<PendingForward>get(forwardBufferCapacity).get());
+
+        subscriptions.add(webSocketHandler.presenceEvents()
+                .flatMap(event -> event.connected()
+                        ? claimOwnership(event.userId())
+                        : releaseOwnership(event.userId()))
+                .subscribe());
+
+        subscriptions.add(Flux.interval(Duration.ofSeconds(heartbeatIntervalSeconds))
+                .concatMap(tick -> refreshOwnership())
+                .subscribe());
+
+        subscriptions.add(listenerContainer.receive(ChannelTopic.of(FORWARD_CHANNEL_PREFIX + nodeId), ChannelTopic.of(BROADCAST_CHANNEL))
+                .concatMap(message -> BROADCAST_CHANNEL.equals(message.getChannel())
+                        ? deliverBroadcast(message.getMessage())
+                        : deliverForwarded(message.getMessage()))
+                .subscribe(
+                        null,
+                        error -> log.error("Cluster forward listener for node {} terminated", nodeId, error)
+                ));
+
+        subscriptions.add(outbound.asFlux()
+                .bufferTimeout(forwardBatchSize, Duration.ofMillis(forwardBatchWindow), true)
+                .concatMap(this::publishBatch)
+                .subscribe());
+
+        log.info("WebSocket cluster routing enabled for node {}", nodeId);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Forwards a serialized notification to every other node holding a session for the user.
+     *
+     * @return {@code true} once at least one other node has been handed the notification, {@code false} if no
+     * other node currently has a session for the user
+     */
+    public Mono<Boolean> forward(String userId, byte[] payload, String coalesceKey) {
+        if (!enabled) {
+            return Mono.just(false);
+        }
+
+        ForwardedNotification notification = new ForwardedNotification(userId, new String(payload, StandardCharsets.UTF_8), coalesceKey);
+        return redisTemplate.opsForSet().members(NODES_KEY_PREFIX + userId)
+                .filter(owner -> !owner.equals(nodeId))
+                .flatMap(owner -> enqueue(new PendingForward(owner, notification, Sinks.one())))
+                .any(Boolean::booleanValue);
+    }
+
+    /**
+     * Whether any node, this one included, has registered a session for the user.
+     */
+    public Mono<Boolean> hasOwner(String userId) {
+        if (!enabled) {
+            return Mono.just(false);
+        }
+        return redisTemplate.opsForSet().size(NODES_KEY_PREFIX + userId)
+                .map(owners -> owners > 0);
+    }
+
+    /**
+     * Registers this node as holding a session for the user. Also done on every connect, but callers that must
+     * act only after the registration is visible to other nodes can wait on this.
+     */
+    public Mono<Void> claimOwnership(String userId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return redisTemplate.execute(CLAIM_OWNERSHIP, List.of(NODES_KEY_PREFIX + userId),
+                        List.of(nodeId, String.valueOf(ownerTtlSeconds)))
+                .doOnError(error -> log.error("Failed to register WebSocket owner for user {}", userId, error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Publishes a serialized notification to the topic's subscribers on every other node.
+     *
+     * @return the number of other nodes that received the broadcast
+     */
+    public Mono<Long> broadcast(String topic, byte[] payload, String coalesceKey) {
+        if (!enabled) {
+            return Mono.just(0L);
+        }
+
+        TopicBroadcast broadcast = new TopicBroadcast(nodeId, topic, new String(payload, StandardCharsets.UTF_8), coalesceKey);
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(broadcast))
+                .flatMap(json -> redisTemplate.convertAndSend(BROADCAST_CHANNEL, json))
+                .map(receivers -> Math.max(0, receivers - 1));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+        if (!enabled) {
+            return;
+        }
+        Flux.fromIterable(webSocketHandler.getConnectedUserIds())
+                .flatMap(this::releaseOwnership)
+                .then()
+                .block(Duration.ofSeconds(5));
+    }
+
+    private Mono<Boolean> enqueue(PendingForward forward) {
+        Sinks.EmitResult result;
+        while ((result = outbound.tryEmitNext(forward)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        if (result.isFailure()) {
+            log.warn("Cluster forward buffer rejected notification for user {} ({})", forward.notification().getUserId(), result);
+            return Mono.just(false);
+        }
+        return forward.delivered().asMono();
+    }
+
+    private Mono<Void> publishBatch(List<PendingForward> batch) {
+        Map<String, List<PendingForward>> byNode = batch.stream()
+                .collect(Collectors.groupingBy(PendingForward::targetNode));
+
+        return Flux.fromIterable(byNode.entrySet())
+                .flatMap(entry -> {
+                    List<ForwardedNotification> payload = entry.getValue().stream()
+                            .map(PendingForward::notification)
+                            .toList();
+
+                    return Mono.fromCallable(() -> objectMapper.writeValueAsString(payload))
+                            .flatMap(json -> redisTemplate.convertAndSend(FORWARD_CHANNEL_PREFIX + entry.getKey(), json))
+                            .doOnNext(receivers -> {
+                                if (receivers == 0) {
+                                    log.warn("Node {} is not listening, dropped {} forwarded notifications",
+                                            entry.getKey(), payload.size());
+                                }
+                                entry.getValue().forEach(forward -> forward.delivered().tryEmitValue(receivers > 0));
+                            })
+                            .doOnError(error -> {
+                                log.error("Failed to forward {} notifications to node {}", payload.size(), entry.getKey(), error);
+                                entry.getValue().forEach(forward -> forward.delivered().tryEmitError(error));
+                            })
+                            .onErrorResume(error -> Mono.empty());
+                })
+                .then();
+    }
+
+    private Mono<Void> deliverForwarded(String json) {
+        return Mono.fromCallable(() -> objectMapper.readValue(json, BATCH_TYPE))
+                .flatMapMany(Flux::fromIterable)
+                .flatMap(forwarded -> webSocketHandler.sendToUser(forwarded.getUserId(),
+                                forwarded.getPayload().getBytes(StandardCharsets.UTF_8), forwarded.getCoalesceKey())
+                        .doOnNext(delivered -> {
+                            if (delivered == 0) {
+                                log.warn("Forwarded notification for user {} arrived after the session closed", forwarded.getUserId());
+                            }
+                        }))
+                .then()
+                .onErrorResume(error -> {
+                    log.error("Failed to deliver forwarded notifications", error);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> deliverBroadcast(String json) {
+        return Mono.fromCallable(() -> objectMapper.readValue(json, TopicBroadcast.class))
+                .filter(broadcast -> !nodeId.equals(broadcast.getOriginNode()))
+                .flatMap(broadcast -> webSocketHandler.broadcastToTopic(broadcast.getTopic(),
+                        broadcast.getPayload().getBytes(StandardCharsets.UTF_8), broadcast.getCoalesceKey()))
+                .then()
+                .onErrorResume(error -> {
+                    log.error("Failed to deliver topic broadcast", error);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> releaseOwnership(String userId) {
+        return redisTemplate.opsForSet().remove(NODES_KEY_PREFIX + userId, nodeId)
+                .doOnError(error -> log.error("Failed to release WebSocket owner for user {}", userId, error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Void> refreshOwnership() {
+        return Flux.fromIterable(webSocketHandler.getConnectedUserIds())
+                .flatMap(this::claimOwnership, 64)
+                .then();
+    }
+
+    private record PendingForward(String targetNode, ForwardedNotification notification, Sinks.One<Boolean> delivered) {
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ForwardedNotification {
+        private String userId;
+        private String payload;
+        private String coalesceKey;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TopicBroadcast {
+        private String originNode;
+        private String topic;
+        private String payload;
+        private String coalesceKey;
+    }
+}
@@ -1,89 +1,351 @@
 package com.notification.service.notification;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.notification.model.dto.NotificationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Tracks every open WebSocket per user (one per tab or device) and the topics each socket subscribed to.
+ * <p>
+ * A notification is serialized once into a byte array and that array is wrapped, not copied, into the frame
+ * sent to each session, so fanning out to many sockets costs one serialization.
+ * <p>
+ * Clients subscribe to topics with {@code ?topics=a,b} on connect, or at any time by sending
+ * {@code {"action":"subscribe","topic":"a"}} / {@code {"action":"unsubscribe","topic":"a"}}.
+ * <p>
+ * Sends never write to a socket directly: frames go into the session's bounded {@link SessionOutbox}, which a
+ * single writer drains at the client's pace.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketNotificationHandler implements WebSocketHandler {
 
+    private static final Duration PRESENCE_EMIT_TIMEOUT = Duration.ofMillis(100);
+    private static final String TOPICS_ATTRIBUTE = "notification.topics";
+    private static final String OUTBOX_ATTRIBUTE = "notification.outbox";
+    private static final String COALESCE_KEY_METADATA = "coalesce_key";
+
     private final ObjectMapper objectMapper;
-    private final Map<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Set<WebSocketSession>> userSessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<WebSocketSession>> topicSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final Sinks.Many<PresenceEvent> presence = Sinks.many().multicast().directBestEffort();
+
+    @Value("${notification.websocket.outbox.capacity:256}")
+    private int outboxCapacity;
+
+    @Value("${notification.websocket.outbox.overflow-policy:DROP_OLDEST}")
+    private SessionOutbox.OverflowPolicy overflowPolicy;
+
+    @Value("${notification.websocket.outbox.session-metrics:true}")
+    private boolean sessionMetrics;
+
+    private Counter droppedCounter;
+    private Counter coalescedCounter;
+    private Counter disconnectedCounter;
+
+    @PostConstruct
+    public void init() {
+        droppedCounter = Counter.builder("notification.websocket.outbox.dropped")
+                .description("Queued WebSocket frames dropped to make room for newer ones")
+                .register(meterRegistry);
+        coalescedCounter = Counter.builder("notification.websocket.outbox.coalesced")
+                .description("Queued WebSocket frames replaced by a newer frame with the same coalesce key")
+                .register(meterRegistry);
+        disconnectedCounter = Counter.builder("notification.websocket.outbox.disconnected")
+                .description("WebSocket sessions closed because their outbound queue overflowed")
+                .register(meterRegistry);
+    }
 
     @Override
     public Mono<Void> handle(WebSocketSession session) {
-        String userId = extractUserId(session);
+        String userId = extractQueryParam(session, "userId");
+        Set<String> topics = ConcurrentHashMap.newKeySet();
+        session.getAttributes().put(TOPICS_ATTRIBUTE, topics);
+
+        SessionOutbox outbox = new SessionOutbox(session, outboxCapacity, overflowPolicy,
+                droppedCounter, coalescedCounter, disconnectedCounter);
+        session.getAttributes().put(OUTBOX_ATTRIBUTE, outbox);
+        Gauge depthGauge = sessionMetrics
+                ? Gauge.builder("notification.websocket.outbox.depth", outbox, SessionOutbox::depth)
+                        .description("Frames queued for a WebSocket session")
+                        .tag("session", session.getId())
+                        .register(meterRegistry)
+                : null;
+        sessionCount.incrementAndGet();
 
         if (userId != null) {
-            userSessions.put(userId, session);
+            addUserSession(userId, session);
             log.info("WebSocket connection established for user: {}", userId);
         }
 
-        return session.receive()
-                .doOnNext(message -> {
-                })
+        String requestedTopics = extractQueryParam(session, "topics");
+        if (requestedTopics != null) {
+            for (String topic : requestedTopics.split(",")) {
+                subscribe(session, topic.trim());
+            }
+        }
+
+        Mono<Void> input = session.receive()
+                .doOnNext(message -> handleClientMessage(session, message))
+                .doFinally(sig -> outbox.close())
+                .then();
+
+        return Mono.when(input, session.send(outbox.frames()))
                 .doFinally(sig -> {
+                    sessionCount.decrementAndGet();
+                    outbox.close();
+                    if (depthGauge != null) {
+                        meterRegistry.remove(depthGauge);
+                    }
+                    topics.forEach(topic -> removeFromGroup(topicSessions, topic, session));
                     if (userId != null) {
-                        userSessions.remove(userId);
+                        removeUserSession(userId, session);
                         log.info("WebSocket connection closed for user: {}", userId);
                     }
-                })
-                .then();
+                });
+    }
+
+    /**
+     * Serializes the client-facing frame for an event with the given text, e.g. its rendered template; the result
+     * can be passed to any number of {@link #sendToUser} and {@link #broadcastToTopic} calls.
+     */
+    public byte[] serialize(NotificationEvent event, String message) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new OutboundNotification(
+                event.getSubject(),
+                message,
+                event.getMetadata(),
+                System.currentTimeMillis()
+        ));
+    }
+
+    /**
+     * @return the number of the user's sessions on this node that queued the frame
+     */
+    public Mono<Integer> sendToUser(String userId, byte[] payload) {
+        return sendToUser(userId, payload, null);
     }
 
-    public Mono<Boolean> sendNotificationToUser(String userId, NotificationEvent event) {
-        WebSocketSession session = userSessions.get(userId);
+    /**
+     * @param coalesceKey lets a newer frame replace a still-queued one with the same key on a slow session
+     * @return the number of the user's sessions on this node that queued the frame
+     */
+    public Mono<Integer> sendToUser(String userId, byte[] payload, String coalesceKey) {
+        Set<WebSocketSession> sessions = userSessions.get(userId);
 
-        if (session == null || !session.isOpen()) {
+        if (sessions == null || sessions.isEmpty()) {
             log.warn("No active WebSocket session for user: {}", userId);
-            return Mono.just(false);
+            return Mono.just(0);
+        }
+        return Mono.fromSupplier(() -> enqueue(sessions, payload, coalesceKey));
+    }
+
+    /**
+     * Queues several frames on each of the user's sessions, to go out in order behind anything already queued.
+     *
+     * @return the number of the user's sessions on this node that queued the frames
+     */
+    public Mono<Integer> sendAllToUser(String userId, List<byte[]> payloads) {
+        Set<WebSocketSession> sessions = userSessions.get(userId);
+
+        if (sessions == null || sessions.isEmpty()) {
+            return Mono.just(0);
+        }
+        return Mono.fromSupplier(() -> {
+            int delivered = 0;
+            for (WebSocketSession session : sessions) {
+                boolean accepted = true;
+                for (byte[] payload : payloads) {
+                    accepted &= outboxOf(session).offer(payload, null);
+                }
+                delivered += accepted ? 1 : 0;
+            }
+            return delivered;
+        });
+    }
+
+    /**
+     * @return the number of sessions on this node subscribed to the topic that queued the frame
+     */
+    public Mono<Integer> broadcastToTopic(String topic, byte[] payload) {
+        return broadcastToTopic(topic, payload, null);
+    }
+
+    /**
+     * @return the number of sessions on this node subscribed to the topic that queued the frame
+     */
+    public Mono<Integer> broadcastToTopic(String topic, byte[] payload, String coalesceKey) {
+        Set<WebSocketSession> sessions = topicSessions.get(topic);
+
+        if (sessions == null || sessions.isEmpty()) {
+            return Mono.just(0);
+        }
+        return Mono.fromSupplier(() -> enqueue(sessions, payload, coalesceKey));
+    }
+
+    /**
+     * Key under which frames for this event coalesce on a slow session, taken from the {@code coalesce_key}
+     * metadata entry.
+     */
+    public static String coalesceKey(NotificationEvent event) {
+        Object key = event.getMetadata() != null ? event.getMetadata().get(COALESCE_KEY_METADATA) : null;
+        return key != null ? key.toString() : null;
+    }
+
+    public int getActiveConnectionsCount() {
+        return sessionCount.get();
+    }
+
+    public int getConnectedUsersCount() {
+        return userSessions.size();
+    }
+
+    public Set<String> getConnectedUserIds() {
+        return userSessions.keySet();
+    }
+
+    /**
+     * Users connecting to and disconnecting from this node; subscribers only see events emitted after they subscribe.
+     * A user counts as connected from their first session until their last one closes.
+     */
+    public Flux<PresenceEvent> presenceEvents() {
+        return presence.asFlux();
+    }
+
+    private int enqueue(Collection<WebSocketSession> sessions, byte[] payload, String coalesceKey) {
+        int delivered = 0;
+        for (WebSocketSession session : sessions) {
+            if (outboxOf(session).offer(payload, coalesceKey)) {
+                delivered++;
+            }
         }
+        return delivered;
+    }
 
+    private SessionOutbox outboxOf(WebSocketSession session) {
+        return (SessionOutbox) session.getAttributes().get(OUTBOX_ATTRIBUTE);
+    }
+
+    private void handleClientMessage(WebSocketSession session, WebSocketMessage message) {
+        if (message.getType() != WebSocketMessage.Type.TEXT) {
+            return;
+        }
         try {
-            String jsonMessage = objectMapper.writeValueAsString(Map.of(
-                    "subject", event.getSubject(),
-                    "message", event.getMessage(),
-                    "metadata", event.getMetadata(),
-                    "timestamp", System.currentTimeMillis()
-            ));
-
-            return session.send(Mono.just(session.textMessage(jsonMessage)))
-                    .thenReturn(true)
-                    .onErrorResume(e -> {
-                        log.error("Failed to send WebSocket message to user: {}", userId, e);
-                        return Mono.just(false);
-                    });
+            JsonNode command = objectMapper.readTree(message.getPayloadAsText());
+            String action = command.path("action").asText("");
+            String topic = command.path("topic").asText("");
 
+            switch (action) {
+                case "subscribe" -> subscribe(session, topic);
+                case "unsubscribe" -> unsubscribe(session, topic);
+                default -> log.debug("Ignoring WebSocket message with action '{}' on session {}", action, session.getId());
+            }
         } catch (Exception e) {
-            log.error("Error serializing message for user: {}", userId, e);
-            return Mono.just(false);
+            log.debug("Ignoring unreadable WebSocket message on session {}", session.getId());
         }
     }
 
-    private String extractUserId(WebSocketSession session) {
-        try {
-            String query = session.getHandshakeInfo().getUri().getQuery();
-            if (query != null && query.contains("userId=")) {
-                return query.split("userId=")[1].split("&")[0];
+    private void subscribe(WebSocketSession session, String topic) {
+        if (topic.isBlank()) {
+            return;
+        }
+        topicsOf(session).add(topic);
+        topicSessions.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(session);
+    }
+
+    private void unsubscribe(WebSocketSession session, String topic) {
+        if (topicsOf(session).remove(topic)) {
+            removeFromGroup(topicSessions, topic, session);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> topicsOf(WebSocketSession session) {
+        return (Set<String>) session.getAttributes().get(TOPICS_ATTRIBUTE);
+    }
+
+    private void addUserSession(String userId, WebSocketSession session) {
+        AtomicBoolean first = new AtomicBoolean();
+        userSessions.compute(userId, (key, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+                first.set(true);
+            }
+            sessions.add(session);
+            return sessions;
+        });
+        if (first.get()) {
+            publishPresence(userId, true);
+        }
+    }
+
+    private void removeUserSession(String userId, WebSocketSession session) {
+        if (removeFromGroup(userSessions, userId, session)) {
+            publishPresence(userId, false);
+        }
+    }
+
+    /**
+     * @return {@code true} if the session was the last one in the group and the group was dropped
+     */
+    private boolean removeFromGroup(Map<String, Set<WebSocketSession>> groups, String key, WebSocketSession session) {
+        AtomicBoolean emptied = new AtomicBoolean();
+        groups.computeIfPresent(key, (k, sessions) -> {
+            if (sessions.remove(session) && sessions.isEmpty()) {
+                emptied.set(true);
+                return null;
             }
+            return sessions;
+        });
+        return emptied.get();
+    }
+
+    private void publishPresence(String userId, boolean connected) {
+        presence.emitNext(new PresenceEvent(userId, connected), Sinks.EmitFailureHandler.busyLooping(PRESENCE_EMIT_TIMEOUT));
+    }
+
+    private String extractQueryParam(WebSocketSession session, String name) {
+        try {
+            return UriComponentsBuilder.fromUri(session.getHandshakeInfo().getUri())
+                    .build()
+                    .getQueryParams()
+                    .getFirst(name);
         } catch (Exception e) {
-            log.warn("Failed to extract userId from session", e);
+            log.warn("Failed to extract {} from session", name, e);
         }
         return null;
     }
 
-    public int getActiveConnectionsCount() {
-        return userSessions.size();
+    public record PresenceEvent(String userId, boolean connected) {
+    }
+
+    public record OutboundNotification(String subject, String message, Map<String, Object> metadata, long timestamp) {
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,15 @@
 
 package com.notification.service.notification;
 
+import com.notification.config.RetryConfig;
 import com.notification.model.dto.NotificationEvent;
+import com.notification.model.dto.NotificationSource;
 import com.notification.model.dto.NotificationStatus;
+import com.notification.model.dto.WhatsAppSendResult;
+import com.notification.service.execution.ChannelBulkhead;
 import com.notification.service.logging.NotificationLoggingService;
+import com.notification.service.ratelimit.OutboundRateLimiter;
+import com.notification.service.template.TemplateEngine;
 import com.twilio.Twilio;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
@@ -13,7 +19,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
@@ -24,6 +29,11 @@ import java.time.Duration;
 public class WhatsAppNotificationService {
 
     private final NotificationLoggingService loggingService;
+    private final ChannelBulkhead whatsAppBulkhead;
+    private final TwilioWebClient twilioWebClient;
+    private final OutboundRateLimiter rateLimiter;
+    private final RetryConfig retryConfig;
+    private final TemplateEngine templateEngine;
 
     @Value("${twilio.account-sid}")
     private String accountSid;
@@ -34,6 +44,9 @@ public class WhatsAppNotificationService {
     @Value("${twilio.phone-number}")
     private String fromNumber;
 
+    @Value("${twilio.client:SDK}")
+    private TwilioClientType clientType;
+
     @Value("${notification.retry.max-attempts}")
     private int maxRetries;
 
@@ -44,7 +57,7 @@ public class WhatsAppNotificationService {
     public void init() {
 
         Twilio.init(accountSid, authToken);
-        log.info("Twilio SDK initialized with Account SID: {}", accountSid);
+        log.info("Twilio SDK initialized with Account SID: {}, sending via {}", accountSid, clientType);
     }
 
     public Mono<Void> sendNotification(NotificationEvent event) {
@@ -58,27 +71,52 @@ public class WhatsAppNotificationService {
                 ? toWhatsAppNumber
                 : "whatsapp:" + toWhatsAppNumber;
 
-        return sendTwilioMessage(formattedToNumber, event.getMessage())
-                .flatMap(response -> loggingService.logNotification(event, NotificationStatus.SUCCESS, null, 0))
-                .doOnSuccess(v -> log.info("WhatsApp notification sent successfully to {}", toWhatsAppNumber))
-                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(backoffDelay))
-                        .doBeforeRetry(signal -> log.warn("Retrying WhatsApp notification, attempt: {}", signal.totalRetries() + 1)))
-                .onErrorResume(error -> {
-                    log.error("Failed to send WhatsApp notification to {}: {}", toWhatsAppNumber, error.getMessage());
-                    return loggingService.logNotification(event, NotificationStatus.FAILED, error.getMessage(), maxRetries)
-                            .then(Mono.error(error));
-                })
-                .then();
+        // Renders and sends; only this is retried, so a failure to log afterwards never sends the message again
+        Mono<String> attempt = Mono.fromCallable(() -> templateEngine.renderMessage(event))
+                .flatMap(body -> sendTwilioMessage(formattedToNumber, body).thenReturn(body));
+
+        if (!retryConfig.isTopicMode()) {
+            // In topic mode the consumer parks the record on a delay topic and logs the attempt
+            attempt = attempt
+                    .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(backoffDelay))
+                            .doBeforeRetry(signal -> log.warn("Retrying WhatsApp notification, attempt: {}", signal.totalRetries() + 1)))
+                    .onErrorResume(error -> {
+                        log.error("Failed to send WhatsApp notification to {}: {}", toWhatsAppNumber, error.getMessage());
+                        return loggingService.logNotification(event, NotificationStatus.FAILED, error.getMessage(), maxRetries)
+                                .then(Mono.error(error));
+                    });
+        }
+
+        return attempt
+                .flatMap(body -> loggingService.logDelivered(event, body))
+                .doOnSuccess(v -> log.info("WhatsApp notification sent successfully to {}", toWhatsAppNumber));
+    }
+
+    private Mono<WhatsAppSendResult> sendTwilioMessage(String to, String messageBody) {
+        Mono<WhatsAppSendResult> send = clientType == TwilioClientType.WEBCLIENT
+                ? twilioWebClient.sendMessage(to, fromNumber, messageBody)
+                : sendViaSdk(to, messageBody);
+
+        return rateLimiter.limit(NotificationSource.WHATSAPP, fromNumber, send)
+                .doOnNext(result -> log.debug("Twilio accepted message {} with status {}",
+                        result.getSid(), result.getStatus()));
     }
 
-    private Mono<Message> sendTwilioMessage(String to, String messageBody) {
-        return Mono.fromCallable(() -> {
-                    return Message.creator(
+    private Mono<WhatsAppSendResult> sendViaSdk(String to, String messageBody) {
+        return whatsAppBulkhead.call(() -> {
+                    Message message = Message.creator(
                             new PhoneNumber(to),
                             new PhoneNumber(fromNumber),
                             messageBody
                     ).create();
-                })
-                .subscribeOn(Schedulers.boundedElastic());
+                    return new WhatsAppSendResult(message.getSid(), String.valueOf(message.getStatus()));
+                });
+    }
+
+    public enum TwilioClientType {
+        /** Blocking Twilio SDK calls on the WhatsApp bulkhead. */
+        SDK,
+        /** Non-blocking calls to the Twilio REST API over the shared WebClient connection pool. */
+        WEBCLIENT
     }
 }
\ No newline at end of file
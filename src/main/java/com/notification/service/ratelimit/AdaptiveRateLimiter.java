@@ -0,0 +1,147 @@
+package com.notification.service.ratelimit;
+
+import com.notification.config.RateLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket for one sender identity on one channel whose refill rate adapts to provider feedback:
+ * every throttling response cuts the rate multiplicatively, every success grows it back additively up to the
+ * configured ceiling.
+ * <p>
+ * Callers reserve a token up front and are delayed on the Reactor timer until it is theirs, so waiting never
+ * holds a thread. A reservation that would have to wait longer than {@code max-wait} is rejected instead.
+ */
+public class AdaptiveRateLimiter {
+
+    private final String name;
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final double decreaseFactor;
+    private final double increaseStep;
+    private final long maxWaitNanos;
+    private final long decreaseCooldownNanos;
+
+    private final Timer waitTimer;
+    private final Counter throttledCounter;
+    private final Counter rejectedCounter;
+    private final Gauge rateGauge;
+    private final MeterRegistry meterRegistry;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long lastDecrease;
+
+    public AdaptiveRateLimiter(String channel, String sender, RateLimitConfig.Channel settings, MeterRegistry meterRegistry) {
+        this.name = channel + ":" + sender;
+        this.maxRate = settings.getRate();
+        this.minRate = Math.min(settings.getMinRate(), maxRate);
+        this.burst = Math.max(1, settings.getBurst());
+        this.decreaseFactor = settings.getDecreaseFactor();
+        this.increaseStep = settings.getIncreaseStep();
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMaxWait());
+        this.decreaseCooldownNanos = TimeUnit.MILLISECONDS.toNanos(settings.getDecreaseCooldown());
+
+        this.rate = maxRate;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+        this.lastDecrease = lastRefill - decreaseCooldownNanos;
+
+        Tags tags = Tags.of("channel", channel, "sender", sender);
+        this.waitTimer = Timer.builder("notification.ratelimit.wait")
+                .description("Time a send waited for a rate limiter token")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.throttledCounter = Counter.builder("notification.ratelimit.throttled")
+                .description("Throttling responses received from the provider")
+                .tags(tags)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("notification.ratelimit.rejected")
+                .description("Sends rejected because the wait for a token exceeded max-wait")
+                .tags(tags)
+                .register(meterRegistry);
+        this.rateGauge = Gauge.builder("notification.ratelimit.rate", this, AdaptiveRateLimiter::currentRate)
+                .description("Current permitted sends per second")
+                .tags(tags)
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Removes this limiter's meters, for limiters that live shorter than the application.
+     */
+    public void close() {
+        meterRegistry.remove(waitTimer);
+        meterRegistry.remove(throttledCounter);
+        meterRegistry.remove(rejectedCounter);
+        meterRegistry.remove(rateGauge);
+    }
+
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            long waitNanos = reserve();
+            if (waitNanos < 0) {
+                rejectedCounter.increment();
+                return Mono.error(new RejectedExecutionException("Rate limit wait for " + name + " exceeds max-wait"));
+            }
+            waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+            return waitNanos == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(waitNanos)).then();
+        });
+    }
+
+    public synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + increaseStep);
+    }
+
+    public synchronized void onThrottled() {
+        throttledCounter.increment();
+        long now = System.nanoTime();
+        if (now - lastDecrease < decreaseCooldownNanos) {
+            return;
+        }
+        refill(now);
+        rate = Math.max(minRate, rate * decreaseFactor);
+        lastDecrease = now;
+    }
+
+    public synchronized double currentRate() {
+        return rate;
+    }
+
+    /**
+     * Takes a token, going into debt if none is available, and returns how long the caller must wait for the
+     * debt to be repaid; {@code -1} if that wait would exceed {@code max-wait}.
+     */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        refill(now);
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+
+        long waitNanos = (long) ((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,93 @@
+package com.notification.service.ratelimit;
+
+import com.notification.config.RateLimitConfig;
+import com.notification.model.dto.NotificationSource;
+import com.twilio.exception.ApiException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies a per-channel, per-sender {@link AdaptiveRateLimiter} to outbound provider calls and feeds the
+ * outcome of each call back into it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboundRateLimiter {
+
+    // Twilio error codes for "too many requests" and WhatsApp per-sender rate limits
+    private static final Set<Integer> TWILIO_THROTTLE_CODES = Set.of(20429, 63018, 14107);
+
+    // Transient SMTP replies relays use to ask the client to slow down
+    private static final Set<Integer> SMTP_THROTTLE_CODES = Set.of(421, 450, 451, 452, 454);
+
+    private final RateLimitConfig rateLimitConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public <T> Mono<T> limit(NotificationSource channel, String sender, Mono<T> call) {
+        if (!rateLimitConfig.isEnabled()) {
+            return call;
+        }
+
+        AdaptiveRateLimiter limiter = limiterFor(channel, sender);
+        return limiter.acquire()
+                .then(call)
+                .doOnSuccess(result -> limiter.onSuccess())
+                .doOnError(error -> {
+                    if (isThrottled(error)) {
+                        limiter.onThrottled();
+                        log.warn("{} provider throttled sender {}, rate lowered to {}/s",
+                                channel, sender, String.format("%.2f", limiter.currentRate()));
+                    }
+                });
+    }
+
+    private AdaptiveRateLimiter limiterFor(NotificationSource channel, String sender) {
+        String channelName = channel.getValue().toLowerCase();
+        return limiters.computeIfAbsent(channelName + ":" + sender, key ->
+                new AdaptiveRateLimiter(channelName, sender, rateLimitConfig.forChannel(channel), meterRegistry));
+    }
+
+    private boolean isThrottled(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientResponseException e && e.getStatusCode().value() == 429) {
+                return true;
+            }
+            if (cause instanceof ApiException e && ((e.getStatusCode() != null && e.getStatusCode() == 429)
+                    || (e.getCode() != null && TWILIO_THROTTLE_CODES.contains(e.getCode())))) {
+                return true;
+            }
+            if (cause instanceof SMTPSendFailedException e && SMTP_THROTTLE_CODES.contains(e.getReturnCode())) {
+                return true;
+            }
+            if (cause instanceof SMTPSenderFailedException e && SMTP_THROTTLE_CODES.contains(e.getReturnCode())) {
+                return true;
+            }
+            if (cause instanceof SMTPAddressFailedException e && SMTP_THROTTLE_CODES.contains(e.getReturnCode())) {
+                return true;
+            }
+            // JavaMailSenderImpl reports per-message failures here rather than as the cause
+            if (cause instanceof MailSendException e) {
+                for (Exception messageException : e.getMessageExceptions()) {
+                    if (isThrottled(messageException)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
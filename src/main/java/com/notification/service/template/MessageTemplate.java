@@ -0,0 +1,69 @@
+package com.notification.service.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template parsed once into alternating literal and {@code {{variable}}} segments, so rendering is a single
+ * pass that appends into one pre-sized builder. Unknown variables render as an empty string.
+ */
+public final class MessageTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final int VARIABLE_SIZE_ESTIMATE = 16;
+
+    private final String id;
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private MessageTemplate(String id, String[] literals, String[] variables) {
+        this.id = id;
+        this.literals = literals;
+        this.variables = variables;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static MessageTemplate compile(String id, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, open));
+            variables.add(source.substring(open + OPEN.length(), close).trim());
+            position = close + CLOSE.length();
+        }
+
+        return new MessageTemplate(id, literals.toArray(String[]::new), variables.toArray(String[]::new));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(literalLength + variables.length * VARIABLE_SIZE_ESTIMATE);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(variables[i]);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+        return out.append(literals[variables.length]).toString();
+    }
+}
@@ -0,0 +1,215 @@
+package com.notification.service.template;
+
+import com.notification.model.dto.NotificationEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves message templates by id and locale, compiling each one once and keeping up to {@code cache-size}
+ * compiled templates in an LRU cache.
+ * <p>
+ * Template {@code job-created} for locale {@code hi-IN} is looked up as {@code job-created_hi_IN.txt}, then
+ * {@code job-created_hi.txt}, then {@code job-created.txt} under {@code location}. With a positive
+ * {@code reload-interval} the cache is checked periodically and templates whose file changed are recompiled,
+ * which is mostly useful when {@code location} points at a directory outside the jar.
+ * <p>
+ * Template ids come from producers, so only ids matching {@link #TEMPLATE_ID_PATTERN} are looked up; anything else
+ * (path separators, {@code ..}) is rejected before it gets near a resource path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateEngine {
+
+    public static final String TEMPLATE_ID_METADATA = NotificationEvent.TEMPLATE_ID_METADATA;
+    public static final String LOCALE_METADATA = "locale";
+    public static final Pattern TEMPLATE_ID_PATTERN = Pattern.compile("[a-z0-9-]+");
+
+    private static final String EXTENSION = ".txt";
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${notification.templates.location:classpath:/templates/messages/}")
+    private String location;
+
+    @Value("${notification.templates.cache-size:256}")
+    private int cacheSize;
+
+    @Value("${notification.templates.reload-interval:0}")
+    private long reloadInterval;
+
+    private Map<String, CachedTemplate> cache;
+    private Disposable reloader;
+
+    @PostConstruct
+    public void init() {
+        if (!location.endsWith("/")) {
+            location = location + "/";
+        }
+        cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedTemplate> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        if (reloadInterval > 0) {
+            reloader = Flux.interval(Duration.ofMillis(reloadInterval))
+                    .concatMap(tick -> Mono.fromRunnable(this::evictChanged).subscribeOn(Schedulers.boundedElastic()))
+                    .subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reloader != null) {
+            reloader.dispose();
+        }
+    }
+
+    /**
+     * The event's text: its {@code template_id} metadata entry rendered with the event's fields and metadata as
+     * variables, or the plain {@code message} when no template is named.
+     */
+    public String renderMessage(NotificationEvent event) {
+        Object templateId = event.getMetadata() != null ? event.getMetadata().get(TEMPLATE_ID_METADATA) : null;
+        return templateId != null
+                ? render(templateId.toString(), localeOf(event), variablesOf(event))
+                : event.getMessage();
+    }
+
+    /**
+     * Renders a template with the event's fields ({@code user_name}, {@code username}, {@code subject},
+     * {@code message}) and metadata entries as variables, in the event's {@code locale}.
+     */
+    public String render(String id, NotificationEvent event, String message) {
+        Map<String, Object> variables = variablesOf(event);
+        variables.put("message", message);
+        return render(id, localeOf(event), variables);
+    }
+
+    public String render(String id, Locale locale, Map<String, ?> values) {
+        return find(id, locale)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown message template: " + id))
+                .render(values);
+    }
+
+    public String render(String id, Map<String, ?> values) {
+        return render(id, null, values);
+    }
+
+    public Optional<MessageTemplate> find(String id, Locale locale) {
+        if (id == null || !TEMPLATE_ID_PATTERN.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid message template id: " + id);
+        }
+        String key = locale != null ? id + "|" + locale.toLanguageTag() : id;
+
+        CachedTemplate cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached == null) {
+            cached = load(id, locale);
+            synchronized (cache) {
+                cache.put(key, cached);
+            }
+        }
+        return Optional.ofNullable(cached.template());
+    }
+
+    private CachedTemplate load(String id, Locale locale) {
+        for (String name : candidates(id, locale)) {
+            Resource resource = resourceLoader.getResource(location + name + EXTENSION);
+            if (resource.exists()) {
+                try (InputStream in = resource.getInputStream()) {
+                    MessageTemplate template = MessageTemplate.compile(id, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                    log.debug("Compiled message template {} from {}", id, resource.getDescription());
+                    return new CachedTemplate(template, resource, lastModified(resource));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read message template " + name, e);
+                }
+            }
+        }
+        return new CachedTemplate(null, null, -1);
+    }
+
+    private static Map<String, Object> variablesOf(NotificationEvent event) {
+        Map<String, Object> variables = event.getMetadata() != null
+                ? new HashMap<>(event.getMetadata())
+                : new HashMap<>();
+        variables.put("user_name", event.getUserName());
+        variables.put("username", event.getUsername());
+        variables.put("subject", event.getSubject());
+        variables.put("message", event.getMessage());
+        return variables;
+    }
+
+    public static Locale localeOf(NotificationEvent event) {
+        Object locale = event.getMetadata() != null ? event.getMetadata().get(LOCALE_METADATA) : null;
+        return locale != null ? Locale.forLanguageTag(locale.toString()) : null;
+    }
+
+    private List<String> candidates(String id, Locale locale) {
+        if (locale == null || locale.getLanguage().isEmpty()) {
+            return List.of(id);
+        }
+        if (locale.getCountry().isEmpty()) {
+            return List.of(id + "_" + locale.getLanguage(), id);
+        }
+        return List.of(id + "_" + locale.getLanguage() + "_" + locale.getCountry(), id + "_" + locale.getLanguage(), id);
+    }
+
+    // Misses are evicted too, so a locale variant added after the first lookup is picked up
+    private void evictChanged() {
+        int changed = 0;
+        synchronized (cache) {
+            var entries = cache.values().iterator();
+            while (entries.hasNext()) {
+                CachedTemplate cached = entries.next();
+                if (cached.resource() == null) {
+                    entries.remove();
+                } else if (lastModified(cached.resource()) != cached.lastModified()) {
+                    entries.remove();
+                    changed++;
+                }
+            }
+        }
+        if (changed > 0) {
+            log.info("Reloading {} changed message templates", changed);
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private record CachedTemplate(MessageTemplate template, Resource resource, long lastModified) {
+    }
+}
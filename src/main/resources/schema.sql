@@ -1,6 +1,8 @@
--- Create notification_logs table
+-- Create notification_logs table, range-partitioned by created_at.
+-- Partitions (notification_logs_pYYYYMMDD or notification_logs_pYYYYMM) are created ahead of time and dropped
+-- after the retention period by NotificationLogPartitionMaintainer; see notification.logging.partitions.
 CREATE TABLE IF NOT EXISTS notification_logs (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGSERIAL,
     user_name VARCHAR(255) NOT NULL,
     username VARCHAR(255) NOT NULL,
     subject VARCHAR(500) NOT NULL,
@@ -12,14 +14,18 @@ CREATE TABLE IF NOT EXISTS notification_logs (
     retry_count INTEGER DEFAULT 0,
     error_message TEXT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
-);
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows outside every created partition so inserts never fail; normally stays empty
+CREATE TABLE IF NOT EXISTS notification_logs_default PARTITION OF notification_logs DEFAULT;
 
--- Create indexes for better query performance
-CREATE INDEX IF NOT EXISTS idx_notification_logs_username ON notification_logs(username);
-CREATE INDEX IF NOT EXISTS idx_notification_logs_status ON notification_logs(status);
-CREATE INDEX IF NOT EXISTS idx_notification_logs_created_at ON notification_logs(created_at);
-CREATE INDEX IF NOT EXISTS idx_notification_logs_source ON notification_logs(source);
+-- Indexes are created on every partition, so each one stays as small as a single partition.
+-- Each ends in (created_at, id) to serve the history API's keyset pages without a sort
+CREATE INDEX IF NOT EXISTS idx_notification_logs_username ON notification_logs(username, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_notification_logs_status ON notification_logs(status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_notification_logs_created_at ON notification_logs(created_at, id);
 
 -- Create function to update updated_at timestamp
 CREATE OR REPLACE FUNCTION update_updated_at_column()
@@ -30,8 +36,18 @@ BEGIN
 END;
 $$ LANGUAGE plpgsql;
 
--- Create trigger to automatically update updated_at
-CREATE TRIGGER update_notification_logs_updated_at
+-- Create trigger to automatically update updated_at; only fires on UPDATE, so inserts do not pay for it
+CREATE OR REPLACE TRIGGER update_notification_logs_updated_at
 BEFORE UPDATE ON notification_logs
 FOR EACH ROW
 EXECUTE FUNCTION update_updated_at_column();
+
+-- Delivery counts per minute, source and status, maintained by NotificationStatsService so that dashboards
+-- never have to count notification_logs
+CREATE TABLE IF NOT EXISTS notification_stats_minute (
+    bucket TIMESTAMP NOT NULL,
+    source VARCHAR(50) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket, source, status)
+);
@@ -0,0 +1,60 @@
+package com.notification.service.execution;
+
+import com.notification.config.BulkheadConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Latency and thread count of many concurrent blocking calls through one bulkhead in each execution mode.
+ * <p>
+ * Not a test; run it from the test classpath, e.g.
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.notification.service.execution.ChannelBulkheadBenchmark
+ * -Dexec.classpathScope=test -Dexec.args="PLATFORM 2000 80"}. Arguments: mode, concurrent calls, platform thread
+ * cap. Each call sleeps 200ms in place of an SMTP or Twilio round trip; run each mode in its own JVM so the peak
+ * thread count is its own.
+ */
+public class ChannelBulkheadBenchmark {
+
+    private static final long CALL_MILLIS = 200;
+
+    public static void main(String[] args) {
+        ExecutionMode mode = ExecutionMode.valueOf(args[0]);
+        int calls = Integer.parseInt(args[1]);
+        int threadCap = Integer.parseInt(args[2]);
+
+        BulkheadConfig.Channel settings = new BulkheadConfig.Channel();
+        settings.setThreadCap(threadCap);
+        settings.setMaxConcurrency(calls);
+        settings.setQueueCapacity(calls);
+        ChannelBulkhead bulkhead = new ChannelBulkhead("benchmark", mode, settings, new SimpleMeterRegistry());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+        long start = System.nanoTime();
+        Flux.range(0, calls)
+                .flatMap(i -> {
+                    long submitted = System.nanoTime();
+                    return bulkhead.call(() -> {
+                                Thread.sleep(CALL_MILLIS);
+                                return i;
+                            })
+                            .doOnNext(result -> latencies.add(System.nanoTime() - submitted));
+                }, calls)
+                .blockLast();
+        long wall = System.nanoTime() - start;
+
+        Collections.sort(latencies);
+        System.out.printf("%s calls=%d threadCap=%d wall=%dms p50=%dms p99=%dms peakThreads=%d%n", mode, calls, threadCap,
+                wall / 1_000_000, latencies.get(latencies.size() / 2) / 1_000_000,
+                latencies.get((int) (latencies.size() * 0.99)) / 1_000_000, threads.getPeakThreadCount());
+        bulkhead.dispose();
+    }
+}
@@ -0,0 +1,71 @@
+package com.notification.service.execution;
+
+import com.notification.config.BulkheadConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelBulkheadTest {
+
+    private static final int RUNNING = 4;
+    private static final int QUEUE_CAPACITY = 10;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ChannelBulkhead bulkhead;
+
+    @AfterEach
+    void tearDown() {
+        bulkhead.dispose();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void admitsOnlyTheRunningSlotsPlusOneSharedQueue(ExecutionMode mode) throws InterruptedException {
+        BulkheadConfig.Channel settings = new BulkheadConfig.Channel();
+        settings.setThreadCap(RUNNING);
+        settings.setMaxConcurrency(RUNNING);
+        settings.setQueueCapacity(QUEUE_CAPACITY);
+        bulkhead = new ChannelBulkhead("test", mode, settings, meterRegistry);
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            bulkhead.call(() -> release.await(10, TimeUnit.SECONDS))
+                    .subscribe(done -> completed.incrementAndGet(), error -> {
+                        if (error instanceof RejectedExecutionException) {
+                            rejected.incrementAndGet();
+                        }
+                    });
+        }
+
+        assertThat(rejected).hasValue(50 - RUNNING - QUEUE_CAPACITY);
+        await(() -> meterRegistry.get("notification.bulkhead.active").gauge().value() == RUNNING);
+        assertThat(meterRegistry.get("notification.bulkhead.waiting").gauge().value()).isEqualTo(QUEUE_CAPACITY);
+        assertThat(meterRegistry.get("notification.bulkhead.active").gauge().value()).isEqualTo(RUNNING);
+
+        release.countDown();
+        await(() -> completed.get() == RUNNING + QUEUE_CAPACITY);
+        // Slots are given back once the admitted calls finish
+        assertThat(bulkhead.call(() -> "after").block(Duration.ofSeconds(10))).isEqualTo("after");
+        assertThat(meterRegistry.get("notification.bulkhead.waiting").gauge().value()).isZero();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 10s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.notification.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.model.dto.NotificationEvent;
+import com.notification.model.dto.NotificationSource;
+import com.sun.management.ThreadMXBean;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decode cost of a typical notification record as JSON and as protobuf: time and bytes allocated per record.
+ * <p>
+ * Not a test; run it from the test classpath, e.g.
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.notification.service.kafka.EventCodecBenchmark
+ * -Dexec.classpathScope=test}. Pass {@code --with-list} to add a list to the metadata, which protobuf carries
+ * through the JSON fallback.
+ */
+public class EventCodecBenchmark {
+
+    private static final int ITERATIONS = 2_000_000;
+    private static final int ROUNDS = 3;
+
+    private enum Mode {
+        /** The old consumer path: bytes to String, then Jackson. */
+        JSON_VIA_STRING,
+        JSON,
+        PROTOBUF
+    }
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        EventCodec codec = new EventCodec(objectMapper);
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("priority", "HIGH");
+        metadata.put("timestamp", "2025-02-01T12:34:56Z");
+        metadata.put("ride_id", "RIDE-7788");
+        metadata.put("eta", 120);
+        metadata.put("fare", 245.5);
+        if (List.of(args).contains("--with-list")) {
+            metadata.put("tags", List.of("a", "b"));
+        }
+        NotificationEvent event = new NotificationEvent("0f8c2a6e-5d1b-4c1e-9a57-3b2f1d0e7c44", "Asha Rao", "asha",
+                "Ride Assigned", NotificationSource.WHATSAPP,
+                new NotificationEvent.Destination("+919876543210", "asha@example.com", "USER-12345", null),
+                "Your driver is arriving in 2 minutes.", metadata);
+
+        Headers jsonHeaders = new RecordHeaders();
+        Headers protobufHeaders = new RecordHeaders();
+        EventCodec.setContentType(protobufHeaders, EventCodec.ContentType.PROTOBUF);
+        byte[] json = codec.encode(event, EventCodec.ContentType.JSON);
+        byte[] protobuf = codec.encode(event, EventCodec.ContentType.PROTOBUF);
+
+        if (!codec.decodeNotification(protobufHeaders, protobuf).equals(codec.decodeNotification(jsonHeaders, json))) {
+            throw new IllegalStateException("JSON and protobuf decode to different events");
+        }
+        System.out.printf("payload: JSON %d B, protobuf %d B%n", json.length, protobuf.length);
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        // Earlier rounds are warm-up; only the last one is reported
+        for (int round = 1; round <= ROUNDS; round++) {
+            for (Mode mode : Mode.values()) {
+                long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                long sink = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    NotificationEvent decoded = switch (mode) {
+                        case JSON_VIA_STRING -> objectMapper.readValue(new String(json, StandardCharsets.UTF_8), NotificationEvent.class);
+                        case JSON -> codec.decodeNotification(jsonHeaders, json);
+                        case PROTOBUF -> codec.decodeNotification(protobufHeaders, protobuf);
+                    };
+                    sink += decoded.getMessage().length();
+                }
+                long elapsed = System.nanoTime() - start;
+                long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+                if (round == ROUNDS) {
+                    System.out.printf("%-16s %6.0f ns/op %6d B/op%n", mode, (double) elapsed / ITERATIONS, allocated / ITERATIONS);
+                }
+                if (sink == 0) {
+                    throw new IllegalStateException();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.notification.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.notification.model.dto.JobCreateEvent;
+import com.notification.model.dto.NotificationEvent;
+import com.notification.model.dto.NotificationPriority;
+import com.notification.model.dto.NotificationSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keeps the hand-written codec in step with {@code notification_events.proto} and with the JSON encoding.
+ */
+class ProtobufEventCodecTest {
+
+    private static final Path PROTO = Path.of("src/main/proto/notification_events.proto");
+    private static final Pattern FIELD = Pattern.compile("^\\s*([\\w.]+|map<[^>]+>)\\s+(\\w+)\\s*=\\s*(\\d+)\\s*;");
+    private static final Pattern ENUM_VALUE = Pattern.compile("^\\s*(\\w+)\\s*=\\s*(\\d+)\\s*;");
+    private static final Pattern BLOCK = Pattern.compile("^\\s*(message|enum|oneof)\\s+(\\w+)\\s*\\{");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static Map<String, Map<Integer, ProtoField>> messages;
+    private static Map<String, Map<String, Integer>> enums;
+
+    private record ProtoField(String type, String name) {
+
+        int wireType() {
+            return switch (type) {
+                case "string", "bytes" -> WireFormat.WIRETYPE_LENGTH_DELIMITED;
+                case "double", "fixed64", "sfixed64" -> WireFormat.WIRETYPE_FIXED64;
+                case "float", "fixed32", "sfixed32" -> WireFormat.WIRETYPE_FIXED32;
+                case "int32", "int64", "uint32", "uint64", "sint32", "sint64", "bool" -> WireFormat.WIRETYPE_VARINT;
+                default -> enums.containsKey(type) ? WireFormat.WIRETYPE_VARINT : WireFormat.WIRETYPE_LENGTH_DELIMITED;
+            };
+        }
+    }
+
+    @BeforeAll
+    static void parseProto() throws IOException {
+        messages = new HashMap<>();
+        enums = new HashMap<>();
+        String message = null;
+        String enumName = null;
+        int depth = 0;
+
+        for (String line : Files.readAllLines(PROTO)) {
+            line = line.replaceAll("//.*", "");
+            Matcher block = BLOCK.matcher(line);
+            if (block.find()) {
+                if (depth == 0) {
+                    message = block.group(1).equals("message") ? block.group(2) : null;
+                    enumName = block.group(1).equals("enum") ? block.group(2) : null;
+                }
+                depth++;
+                continue;
+            }
+            if (line.contains("}")) {
+                depth--;
+                continue;
+            }
+            Matcher field = FIELD.matcher(line);
+            if (message != null && field.find()) {
+                messages.computeIfAbsent(message, name -> new HashMap<>())
+                        .put(Integer.parseInt(field.group(3)), new ProtoField(field.group(1), field.group(2)));
+                continue;
+            }
+            Matcher value = ENUM_VALUE.matcher(line);
+            if (enumName != null && value.find()) {
+                enums.computeIfAbsent(enumName, name -> new HashMap<>()).put(value.group(1), Integer.parseInt(value.group(2)));
+            }
+        }
+        assertThat(messages).containsKeys("NotificationEvent", "Destination", "Value", "JobCreateEvent");
+        assertThat(enums).containsKeys("Source", "Priority");
+    }
+
+    // Each string field carries its own proto name, so reading the bytes back shows which number it was written under
+
+    @Test
+    void notificationEventFieldsMatchTheProto() throws IOException {
+        NotificationEvent event = NotificationEvent.builder()
+                .eventId("event_id")
+                .userName("user_name")
+                .username("username")
+                .subject("subject")
+                .source(NotificationSource.EMAIL)
+                .destination(new NotificationEvent.Destination("whatsapp_number", "email", "user_id", "topic"))
+                .message("message")
+                .metadata(new LinkedHashMap<>(Map.of(
+                        "string_value", "text",
+                        "long_value", 42L,
+                        "double_value", 1.5,
+                        "bool_value", true,
+                        "json_value", List.of(1, 2))))
+                .priority(NotificationPriority.BULK)
+                .build();
+
+        List<String> seen = new ArrayList<>();
+        CodedInputStream in = CodedInputStream.newInstance(ProtobufEventCodec.encode(event, OBJECT_MAPPER));
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            ProtoField field = fieldOf("NotificationEvent", tag);
+            seen.add(field.name());
+            switch (field.name()) {
+                case "source" -> assertThat(enumName("Source", in.readEnum())).isEqualTo("EMAIL");
+                case "priority" -> assertThat(enumName("Priority", in.readEnum())).isEqualTo("BULK");
+                case "destination" -> readStrings("Destination", in, seen);
+                case "metadata" -> readMetadataEntry(in);
+                default -> assertThat(in.readString()).isEqualTo(field.name());
+            }
+        }
+        assertThat(seen).contains("event_id", "user_name", "username", "subject", "source", "destination",
+                "whatsapp_number", "email", "user_id", "topic", "message", "metadata", "priority");
+    }
+
+    @Test
+    void jobCreateEventFieldsMatchTheProto() throws IOException {
+        JobCreateEvent event = new JobCreateEvent();
+        event.setJobTitle("job_title");
+        event.setDescription("description");
+        event.setLocation("location");
+        event.setWage("wage");
+        event.setContactNumber("contact_number");
+        event.setRequesterWhatsapp("requester_whatsapp");
+
+        List<String> seen = new ArrayList<>();
+        readStrings("JobCreateEvent", CodedInputStream.newInstance(ProtobufEventCodec.encode(event)), seen);
+        assertThat(seen).containsExactlyInAnyOrder("job_title", "description", "location", "wage", "contact_number",
+                "requester_whatsapp");
+        assertThat(ProtobufEventCodec.decodeJobCreated(ProtobufEventCodec.encode(event))).isEqualTo(event);
+    }
+
+    @ParameterizedTest
+    @EnumSource(NotificationSource.class)
+    void sourceNumbersMatchTheProto(NotificationSource source) throws IOException {
+        int number = enums.get("Source").get(source.name());
+        NotificationEvent event = NotificationEvent.builder().source(source).build();
+
+        assertThat(ProtobufEventCodec.encode(event, OBJECT_MAPPER)).isEqualTo(encodeEnum(5, number));
+        assertThat(ProtobufEventCodec.decodeNotification(encodeEnum(5, number), OBJECT_MAPPER).getSource()).isEqualTo(source);
+    }
+
+    @ParameterizedTest
+    @EnumSource(NotificationPriority.class)
+    void priorityNumbersMatchTheProto(NotificationPriority priority) throws IOException {
+        int number = enums.get("Priority").get(priority.name());
+        NotificationEvent event = NotificationEvent.builder().priority(priority).build();
+
+        assertThat(ProtobufEventCodec.encode(event, OBJECT_MAPPER)).isEqualTo(encodeEnum(9, number));
+        assertThat(ProtobufEventCodec.decodeNotification(encodeEnum(9, number), OBJECT_MAPPER).getPriority()).isEqualTo(priority);
+    }
+
+    @Test
+    void everyProtoEnumValueHasAConstant() {
+        enums.get("Source").forEach((name, number) -> {
+            if (number != 0) {
+                assertThat(NotificationSource.valueOf(name)).isNotNull();
+            }
+        });
+        enums.get("Priority").forEach((name, number) -> {
+            if (number != 0) {
+                assertThat(NotificationPriority.valueOf(name)).isNotNull();
+            }
+        });
+    }
+
+    @Test
+    void unknownPriorityDecodesAsUnset() throws IOException {
+        assertThat(ProtobufEventCodec.decodeNotification(encodeEnum(9, 99), OBJECT_MAPPER).getPriority()).isNull();
+    }
+
+    static Stream<Arguments> metadataValues() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("a", 1);
+        nested.put("b", List.of("x", true));
+        return Stream.of(
+                Arguments.of("string", "text"),
+                Arguments.of("empty string", ""),
+                Arguments.of("int", 42),
+                Arguments.of("negative int", -7),
+                Arguments.of("long", 1L << 40),
+                Arguments.of("long that fits an int", 5L),
+                Arguments.of("short", (short) 3),
+                Arguments.of("double", 2.75),
+                Arguments.of("float", 1.1f),
+                Arguments.of("big decimal", new BigDecimal("12.50")),
+                Arguments.of("big integer", new BigInteger("123456789012345678901234567890")),
+                Arguments.of("true", true),
+                Arguments.of("false", false),
+                Arguments.of("null", null),
+                Arguments.of("list", List.of(1, "two", 3.0)),
+                Arguments.of("object", nested)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("metadataValues")
+    void metadataValuesDecodeAsTheyDoFromJson(String kind, Object value) throws IOException {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("value", value);
+        NotificationEvent event = sampleEvent(metadata);
+
+        NotificationEvent fromJson = OBJECT_MAPPER.readValue(OBJECT_MAPPER.writeValueAsBytes(event), NotificationEvent.class);
+        NotificationEvent fromProtobuf = ProtobufEventCodec.decodeNotification(ProtobufEventCodec.encode(event, OBJECT_MAPPER), OBJECT_MAPPER);
+
+        assertThat(fromProtobuf).isEqualTo(fromJson);
+        Object decoded = fromProtobuf.getMetadata().get("value");
+        Object expected = fromJson.getMetadata().get("value");
+        assertThat(decoded == null ? null : decoded.getClass()).isEqualTo(expected == null ? null : expected.getClass());
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() throws IOException {
+        NotificationEvent event = sampleEvent(Map.of("ride_id", "RIDE-1"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(ProtobufEventCodec.encode(event, OBJECT_MAPPER));
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeString(100, "from a newer schema");
+        out.writeInt64(101, 123);
+        out.writeDouble(102, 1.0);
+        out.writeFixed32(103, 7);
+        out.flush();
+
+        assertThat(ProtobufEventCodec.decodeNotification(bytes.toByteArray(), OBJECT_MAPPER)).isEqualTo(event);
+    }
+
+    @Test
+    void knownFieldsWithAnUnexpectedWireTypeAreSkipped() throws IOException {
+        NotificationEvent event = sampleEvent(Map.of("ride_id", "RIDE-1"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(ProtobufEventCodec.encode(event, OBJECT_MAPPER));
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeUInt64(1, 5);                  // event_id as a varint
+        out.writeString(5, "EMAIL");            // source as a string
+        out.writeFixed64(7, 99);                // message as a fixed64
+        out.writeString(9, "HIGH");             // priority as a string
+        out.writeFixed32(6, 1);                 // destination as a fixed32
+        out.flush();
+
+        assertThat(ProtobufEventCodec.decodeNotification(bytes.toByteArray(), OBJECT_MAPPER)).isEqualTo(event);
+    }
+
+    @Test
+    void metadataValueWithAnUnexpectedWireTypeIsSkipped() throws IOException {
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        CodedOutputStream valueOut = CodedOutputStream.newInstance(value);
+        valueOut.writeUInt64(3, 4607182418800017408L); // double_value as a varint
+        valueOut.flush();
+
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        CodedOutputStream entryOut = CodedOutputStream.newInstance(entry);
+        entryOut.writeString(1, "fare");
+        entryOut.writeByteArray(2, value.toByteArray());
+        entryOut.flush();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeByteArray(8, entry.toByteArray());
+        out.flush();
+
+        NotificationEvent decoded = ProtobufEventCodec.decodeNotification(bytes.toByteArray(), OBJECT_MAPPER);
+        assertThat(decoded.getMetadata()).containsEntry("fare", null);
+    }
+
+    private static NotificationEvent sampleEvent(Map<String, Object> metadata) {
+        return NotificationEvent.builder()
+                .eventId("0f8c2a6e-5d1b-4c1e-9a57-3b2f1d0e7c44")
+                .userName("Asha Rao")
+                .username("asha")
+                .subject("Ride Assigned")
+                .source(NotificationSource.WHATSAPP)
+                .destination(new NotificationEvent.Destination("+919876543210", "asha@example.com", "USER-1", null))
+                .message("Your driver is arriving in 2 minutes.")
+                .metadata(metadata)
+                .priority(NotificationPriority.HIGH)
+                .build();
+    }
+
+    private static ProtoField fieldOf(String message, int tag) {
+        ProtoField field = messages.get(message).get(WireFormat.getTagFieldNumber(tag));
+        assertThat(field).as("%s field %d", message, WireFormat.getTagFieldNumber(tag)).isNotNull();
+        assertThat(WireFormat.getTagWireType(tag)).as("wire type of %s.%s", message, field.name()).isEqualTo(field.wireType());
+        return field;
+    }
+
+    private static String enumName(String enumType, int number) {
+        return enums.get(enumType).entrySet().stream()
+                .filter(value -> value.getValue() == number)
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static void readStrings(String message, CodedInputStream in, List<String> seen) throws IOException {
+        boolean nested = !message.endsWith("Event");
+        int limit = nested ? in.pushLimit(in.readRawVarint32()) : 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            ProtoField field = fieldOf(message, tag);
+            seen.add(field.name());
+            assertThat(in.readString()).isEqualTo(field.name());
+        }
+        if (nested) {
+            in.popLimit(limit);
+        }
+    }
+
+    // A map entry is a message of key = 1 and value = 2; each value sits under the Value field its key names
+    private static void readMetadataEntry(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        assertThat(in.readTag()).isEqualTo(WireFormat.WIRETYPE_LENGTH_DELIMITED | 1 << 3);
+        String key = in.readString();
+        assertThat(in.readTag()).isEqualTo(WireFormat.WIRETYPE_LENGTH_DELIMITED | 2 << 3);
+        int valueLimit = in.pushLimit(in.readRawVarint32());
+        int tag = in.readTag();
+        assertThat(fieldOf("Value", tag).name()).isEqualTo(key);
+        in.skipField(tag);
+        assertThat(in.readTag()).isZero();
+        in.popLimit(valueLimit);
+        assertThat(in.readTag()).isZero();
+        in.popLimit(limit);
+    }
+
+    private static byte[] encodeEnum(int field, int number) throws IOException {
+        byte[] bytes = new byte[CodedOutputStream.computeEnumSize(field, number)];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        out.writeEnum(field, number);
+        out.checkNoSpaceLeft();
+        return bytes;
+    }
+}
@@ -0,0 +1,157 @@
+package com.notification.service.notification;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link TwilioWebClient} against a local stub of the Twilio Messages endpoint.
+ */
+class TwilioWebClientTest {
+
+    private static final String ACCOUNT_SID = "AC123";
+    private static final String AUTH_TOKEN = "secret";
+    private static final String MESSAGES_PATH = "/2010-04-01/Accounts/" + ACCOUNT_SID + "/Messages.json";
+
+    private final Deque<BiFunction<HttpServerRequest, HttpServerResponse, Mono<Void>>> responses = new ArrayDeque<>();
+    private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+
+    private DisposableServer server;
+    private TwilioWebClient client;
+
+    private record RecordedRequest(String method, String path, String authorization, String body) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((request, response) -> request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                        .defaultIfEmpty("")
+                        .flatMap(body -> {
+                            requests.add(new RecordedRequest(request.method().name(), request.uri(),
+                                    request.requestHeaders().get("Authorization"), body));
+                            BiFunction<HttpServerRequest, HttpServerResponse, Mono<Void>> next;
+                            synchronized (responses) {
+                                next = responses.poll();
+                            }
+                            return next != null
+                                    ? next.apply(request, response)
+                                    : json(response, 500, "{\"message\":\"unexpected request\"}");
+                        }))
+                .bindNow();
+
+        client = new TwilioWebClient(WebClient.builder());
+        ReflectionTestUtils.setField(client, "accountSid", ACCOUNT_SID);
+        ReflectionTestUtils.setField(client, "authToken", AUTH_TOKEN);
+        ReflectionTestUtils.setField(client, "baseUrl", "http://127.0.0.1:" + server.port());
+        ReflectionTestUtils.setField(client, "maxConnections", 4);
+        ReflectionTestUtils.setField(client, "pendingAcquireTimeout", 1000L);
+        ReflectionTestUtils.setField(client, "maxIdleTime", 30000L);
+        ReflectionTestUtils.setField(client, "connectTimeout", 1000);
+        ReflectionTestUtils.setField(client, "responseTimeout", 500L);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.disposeNow();
+    }
+
+    @Test
+    void returnsSidAndStatusOfAcceptedMessage() {
+        respond((request, response) -> json(response, 201, "{\"sid\":\"SM1\",\"status\":\"queued\"}"));
+
+        StepVerifier.create(client.sendMessage("whatsapp:+15550001", "whatsapp:+15550002", "Hello there"))
+                .assertNext(result -> {
+                    assertThat(result.getSid()).isEqualTo("SM1");
+                    assertThat(result.getStatus()).isEqualTo("queued");
+                })
+                .verifyComplete();
+
+        assertThat(requests).hasSize(1);
+        RecordedRequest request = requests.get(0);
+        assertThat(request.method()).isEqualTo("POST");
+        assertThat(request.path()).isEqualTo(MESSAGES_PATH);
+        assertThat(request.authorization()).isEqualTo("Basic " + Base64.getEncoder()
+                .encodeToString((ACCOUNT_SID + ":" + AUTH_TOKEN).getBytes(StandardCharsets.UTF_8)));
+        assertThat(request.body()).isEqualTo("To=whatsapp%3A%2B15550001&From=whatsapp%3A%2B15550002&Body=Hello+there");
+    }
+
+    @Test
+    void failsWithClientErrorOn4xx() {
+        respond((request, response) -> json(response, 400, "{\"code\":21211,\"message\":\"Invalid 'To' Phone Number\"}"));
+
+        StepVerifier.create(client.sendMessage("whatsapp:+1", "whatsapp:+15550002", "Hello"))
+                .expectErrorSatisfies(error -> {
+                    assertThat(error).isInstanceOf(WebClientResponseException.BadRequest.class);
+                    assertThat(((WebClientResponseException) error).getResponseBodyAsString()).contains("21211");
+                })
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void sendsAgainWhenRetriedAfter5xx() {
+        respond((request, response) -> json(response, 503, "{\"message\":\"Service Unavailable\"}"));
+        respond((request, response) -> json(response, 201, "{\"sid\":\"SM2\",\"status\":\"queued\"}"));
+
+        // The same retry the WhatsApp service wraps around each send
+        StepVerifier.create(client.sendMessage("whatsapp:+15550001", "whatsapp:+15550002", "Hello")
+                        .retryWhen(Retry.backoff(2, Duration.ofMillis(10))))
+                .assertNext(result -> assertThat(result.getSid()).isEqualTo("SM2"))
+                .verifyComplete();
+
+        assertThat(requests).hasSize(2);
+    }
+
+    @Test
+    void failsWhenTheResponseTimesOut() {
+        respond((request, response) -> Mono.delay(Duration.ofSeconds(3))
+                .then(json(response, 201, "{\"sid\":\"SM3\",\"status\":\"queued\"}")));
+
+        StepVerifier.create(client.sendMessage("whatsapp:+15550001", "whatsapp:+15550002", "Hello"))
+                .expectErrorSatisfies(error -> {
+                    assertThat(error).isInstanceOf(WebClientRequestException.class);
+                    assertThat(error.getCause()).isInstanceOf(ReadTimeoutException.class);
+                })
+                .verify(Duration.ofSeconds(2));
+    }
+
+    private void respond(BiFunction<HttpServerRequest, HttpServerResponse, Mono<Void>> handler) {
+        synchronized (responses) {
+            responses.add(handler);
+        }
+    }
+
+    private static Mono<Void> json(HttpServerResponse response, int status, String body) {
+        return response.status(status)
+                .header("Content-Type", "application/json")
+                .sendString(Mono.just(body))
+                .then();
+    }
+}